@@ -4,7 +4,11 @@ import android.app.Application;
 import android.content.Context;
 import android.util.Log;
 
+import com.plantcare.diseasedetector.ml.InferenceEngine;
+import com.plantcare.diseasedetector.ml.ModelManager;
+import com.plantcare.diseasedetector.utils.BitmapPool;
 import com.plantcare.diseasedetector.utils.PerformanceUtils;
+import com.plantcare.diseasedetector.utils.ThumbnailCache;
 
 /**
  * Application class for PlantDiseaseDetector
@@ -15,6 +19,10 @@ public class PlantDiseaseApplication extends Application {
     private static final String TAG = "PlantDiseaseApp";
     private static PlantDiseaseApplication instance;
 
+    // Process-wide AI model holder
+    private ModelManager modelManager;
+    private InferenceEngine inferenceEngine;
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -25,9 +33,15 @@ public class PlantDiseaseApplication extends Application {
             // Log application startup
             Log.i(TAG, "PlantDiseaseDetector Application starting...");
 
+            // Start loading the AI model in the background
+            initializeModel();
+
             // Initialize performance optimizations
             initializeOptimizations();
 
+            // Render list thumbnails for scans saved before they were made at scan time
+            ThumbnailCache.getInstance(this).startBackfill();
+
             // Log system information for debugging
             PerformanceUtils.logSystemInfo(this);
 
@@ -51,6 +65,33 @@ public class PlantDiseaseApplication extends Application {
         return instance != null ? instance.getApplicationContext() : null;
     }
 
+    /**
+     * Get the shared AI model holder
+     */
+    public ModelManager getModelManager() {
+        return modelManager;
+    }
+
+    /**
+     * Get the shared inference queue
+     */
+    public InferenceEngine getInferenceEngine() {
+        return inferenceEngine;
+    }
+
+    /**
+     * Load and warm up the AI model once per process
+     */
+    private void initializeModel() {
+        try {
+            modelManager = new ModelManager(this);
+            inferenceEngine = new InferenceEngine(modelManager);
+            modelManager.preload();
+        } catch (Exception e) {
+            Log.w(TAG, "Error starting model preload", e);
+        }
+    }
+
     /**
      * Initialize performance optimizations
      */
@@ -190,6 +231,13 @@ public class PlantDiseaseApplication extends Application {
         try {
             Log.d(TAG, "Memory trim requested - level: " + level);
 
+            // Drop the model under pressure, it reloads lazily on next use
+            if (modelManager != null) {
+                modelManager.onTrimMemory(level);
+            }
+            ThumbnailCache.getInstance(this).onTrimMemory(level);
+            BitmapPool.getInstance().onTrimMemory(level);
+
             switch (level) {
                 case TRIM_MEMORY_RUNNING_MODERATE:
                 case TRIM_MEMORY_RUNNING_LOW:
@@ -227,6 +275,10 @@ public class PlantDiseaseApplication extends Application {
             // Perform final cleanup
             performEmergencyCleanup();
 
+            if (inferenceEngine != null) {
+                inferenceEngine.shutdown();
+            }
+
             super.onTerminate();
         } catch (Exception e) {
             Log.w(TAG, "Error in onTerminate", e);
@@ -6,17 +6,20 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.plantcare.diseasedetector.data.models.ScanResult;
 import com.plantcare.diseasedetector.data.models.DiseaseInfo;
+import com.plantcare.diseasedetector.data.models.PredictionCacheEntry;
 
 /**
  * Room Database for Plant Disease Detector App
  * Manages all database operations and provides DAOs
  */
 @Database(
-        entities = {ScanResult.class, DiseaseInfo.class},
-        version = 2,
+        entities = {ScanResult.class, DiseaseInfo.class, PredictionCacheEntry.class},
+        version = 9,
         exportSchema = false
 )
 @TypeConverters({DatabaseConverters.class})
@@ -28,6 +31,85 @@ public abstract class AppDatabase extends RoomDatabase {
     // Singleton instance
     private static volatile AppDatabase INSTANCE;
 
+    /**
+     * v3: store top-K model output with each scan
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE scan_results ADD COLUMN top_predictions TEXT");
+        }
+    };
+
+    /**
+     * v4: persistent tier of the perceptual-hash prediction cache
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS prediction_cache ("
+                    + "image_hash INTEGER NOT NULL, "
+                    + "model_version TEXT NOT NULL, "
+                    + "top_predictions TEXT, "
+                    + "inference_time_ms INTEGER NOT NULL, "
+                    + "last_used INTEGER NOT NULL, "
+                    + "PRIMARY KEY(image_hash, model_version))");
+        }
+    };
+
+    /**
+     * v5: lesion heatmap from tiled analysis
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE scan_results ADD COLUMN lesion_heatmap TEXT");
+        }
+    };
+
+    /**
+     * v6: per-scan processing time
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE scan_results ADD COLUMN processing_time_ms INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /**
+     * v7: prediction uncertainty (top-2 margin and entropy)
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE scan_results ADD COLUMN top_margin REAL");
+            database.execSQL("ALTER TABLE scan_results ADD COLUMN entropy REAL");
+        }
+    };
+
+    /**
+     * v8: photo quality (blur and exposure)
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE scan_results ADD COLUMN quality_score REAL");
+            database.execSQL("ALTER TABLE scan_results ADD COLUMN quality_issue TEXT");
+        }
+    };
+
+    /**
+     * v9: thumbnails rendered at scan time
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE scan_results ADD COLUMN thumbnail_small_path TEXT");
+            database.execSQL("ALTER TABLE scan_results ADD COLUMN thumbnail_medium_path TEXT");
+        }
+    };
+
     /**
      * Get DAO for scan results
      */
@@ -38,6 +120,11 @@ public abstract class AppDatabase extends RoomDatabase {
      */
     public abstract DiseaseInfoDao diseaseInfoDao();
 
+    /**
+     * Get DAO for cached predictions
+     */
+    public abstract PredictionCacheDao predictionCacheDao();
+
     /**
      * Get singleton database instance
      */
@@ -50,6 +137,7 @@ public abstract class AppDatabase extends RoomDatabase {
                                     AppDatabase.class,
                                     DATABASE_NAME
                             )
+                            .addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9)
                             .fallbackToDestructiveMigration() // Handle schema changes
                             .build();
                 }
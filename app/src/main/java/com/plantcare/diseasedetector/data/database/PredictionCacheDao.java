@@ -0,0 +1,58 @@
+package com.plantcare.diseasedetector.data.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.plantcare.diseasedetector.data.models.PredictionCacheEntry;
+
+/**
+ * Data Access Object for the persistent prediction cache
+ */
+@Dao
+public interface PredictionCacheDao {
+
+    /**
+     * Insert or replace a cache entry
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertEntry(PredictionCacheEntry entry);
+
+    /**
+     * Get cached prediction for an image hash and model version
+     */
+    @Query("SELECT * FROM prediction_cache WHERE image_hash = :imageHash AND model_version = :modelVersion LIMIT 1")
+    PredictionCacheEntry getEntry(long imageHash, String modelVersion);
+
+    /**
+     * Mark an entry as recently used
+     */
+    @Query("UPDATE prediction_cache SET last_used = :lastUsed WHERE image_hash = :imageHash AND model_version = :modelVersion")
+    void touchEntry(long imageHash, String modelVersion, long lastUsed);
+
+    /**
+     * Keep only the most recently used entries
+     */
+    @Query("DELETE FROM prediction_cache WHERE rowid NOT IN (SELECT rowid FROM prediction_cache ORDER BY last_used DESC LIMIT :maxEntries)")
+    void trimToSize(int maxEntries);
+
+    /**
+     * Drop entries whose model_version does not start with the given prefix
+     * (entries of other models, or written before the prediction variant was part of the key)
+     */
+    @Query("DELETE FROM prediction_cache WHERE substr(model_version, 1, length(:versionPrefix)) != :versionPrefix")
+    void deleteOtherVersions(String versionPrefix);
+
+    /**
+     * Clear the cache
+     */
+    @Query("DELETE FROM prediction_cache")
+    void deleteAll();
+
+    /**
+     * Get number of cached entries
+     */
+    @Query("SELECT COUNT(*) FROM prediction_cache")
+    int getEntryCount();
+}
@@ -192,6 +192,30 @@ public interface ScanResultDao {
     @Query("SELECT * FROM scan_results WHERE confidence < :threshold ORDER BY scan_date DESC")
     List<ScanResult> getLowConfidenceScans(float threshold);
 
+    /**
+     * Get scans whose list thumbnails have not been generated yet
+     */
+    @Query("SELECT * FROM scan_results WHERE thumbnail_small_path IS NULL ORDER BY scan_date DESC LIMIT :limit")
+    List<ScanResult> getScansWithoutThumbnails(int limit);
+
+    /**
+     * Record generated thumbnails (empty paths mark scans that cannot have any)
+     */
+    @Query("UPDATE scan_results SET thumbnail_small_path = :smallPath, thumbnail_medium_path = :mediumPath WHERE id = :id")
+    void updateThumbnailPaths(int id, String smallPath, String mediumPath);
+
+    /**
+     * Count scans referencing an image file (ImageStore reference count)
+     */
+    @Query("SELECT COUNT(*) FROM scan_results WHERE image_path = :imagePath")
+    int countScansWithImage(String imagePath);
+
+    /**
+     * Analysis time of the most recent scans that recorded one, newest first
+     */
+    @Query("SELECT processing_time_ms FROM scan_results WHERE processing_time_ms > 0 ORDER BY scan_date DESC LIMIT :limit")
+    List<Long> getRecentProcessingTimes(int limit);
+
     /**
      * Helper classes for aggregate queries
      */
@@ -0,0 +1,85 @@
+package com.plantcare.diseasedetector.data.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * Entity class for the persistent tier of the prediction cache
+ * Keyed by the perceptual hash of the 224x224 model input and the model version,
+ * qualified by the prediction variant (e.g. "<version>#STANDARD")
+ */
+@Entity(tableName = "prediction_cache", primaryKeys = {"image_hash", "model_version"})
+public class PredictionCacheEntry {
+
+    @ColumnInfo(name = "image_hash")
+    private long imageHash;
+
+    @NonNull
+    @ColumnInfo(name = "model_version")
+    private String modelVersion = "";
+
+    // Compact top-K model output, same encoding as ScanResult.top_predictions
+    @ColumnInfo(name = "top_predictions")
+    private String topPredictions;
+
+    @ColumnInfo(name = "inference_time_ms")
+    private long inferenceTimeMs;
+
+    @ColumnInfo(name = "last_used")
+    private long lastUsed;
+
+    public PredictionCacheEntry() {
+    }
+
+    public PredictionCacheEntry(long imageHash, @NonNull String modelVersion, String topPredictions,
+                                long inferenceTimeMs) {
+        this.imageHash = imageHash;
+        this.modelVersion = modelVersion;
+        this.topPredictions = topPredictions;
+        this.inferenceTimeMs = inferenceTimeMs;
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    // Getters and Setters
+    public long getImageHash() {
+        return imageHash;
+    }
+
+    public void setImageHash(long imageHash) {
+        this.imageHash = imageHash;
+    }
+
+    @NonNull
+    public String getModelVersion() {
+        return modelVersion;
+    }
+
+    public void setModelVersion(@NonNull String modelVersion) {
+        this.modelVersion = modelVersion;
+    }
+
+    public String getTopPredictions() {
+        return topPredictions;
+    }
+
+    public void setTopPredictions(String topPredictions) {
+        this.topPredictions = topPredictions;
+    }
+
+    public long getInferenceTimeMs() {
+        return inferenceTimeMs;
+    }
+
+    public void setInferenceTimeMs(long inferenceTimeMs) {
+        this.inferenceTimeMs = inferenceTimeMs;
+    }
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    public void setLastUsed(long lastUsed) {
+        this.lastUsed = lastUsed;
+    }
+}
@@ -12,6 +12,14 @@ import java.util.Date;
 @Entity(tableName = "scan_results")
 public class ScanResult {
 
+    // A scan needs review when the top two classes are this close, or the output this flat
+    public static final float REVIEW_MAX_MARGIN = 0.2f;
+    public static final float REVIEW_MIN_ENTROPY = 0.5f;
+    // Fallback for scans without uncertainty data
+    public static final float REVIEW_MIN_CONFIDENCE = 0.6f;
+    // Photos scoring below this are flagged as low quality
+    public static final float LOW_QUALITY_SCORE = 0.5f;
+
     @PrimaryKey(autoGenerate = true)
     private int id;
 
@@ -51,6 +59,41 @@ public class ScanResult {
     @ColumnInfo(name = "follow_up_date")
     private Date followUpDate;
 
+    // Compact top-K model output, e.g. "3:0.9120;28:0.0510" (class index:confidence)
+    @ColumnInfo(name = "top_predictions")
+    private String topPredictions;
+
+    // Per-tile disease probability from tiled analysis, e.g. "3x2:00ff8011a0c4" (see LesionHeatmap)
+    @ColumnInfo(name = "lesion_heatmap")
+    private String lesionHeatmap;
+
+    // Time from capture to result (queue + decode + inference), 0 if not measured
+    @ColumnInfo(name = "processing_time_ms", defaultValue = "0")
+    private long processingTimeMs;
+
+    // Top-1 minus top-2 confidence, null for scans made before it was recorded
+    @ColumnInfo(name = "top_margin")
+    private Float topMargin;
+
+    // Normalized output entropy, 0 (certain) - 1 (uniform), null if not recorded
+    @ColumnInfo(name = "entropy")
+    private Float entropy;
+
+    // Photo quality 0 (unusable) - 1 (sharp, well exposed), null if not measured
+    @ColumnInfo(name = "quality_score")
+    private Float qualityScore;
+
+    // Main quality problem (ImageQuality.Issue name), null if none or not measured
+    @ColumnInfo(name = "quality_issue")
+    private String qualityIssue;
+
+    // Pre-rendered list thumbnails (see ThumbnailCache), null until generated, empty if the image is gone
+    @ColumnInfo(name = "thumbnail_small_path")
+    private String thumbnailSmallPath;
+
+    @ColumnInfo(name = "thumbnail_medium_path")
+    private String thumbnailMediumPath;
+
     // Constructors
     public ScanResult() {
         this.scanDate = new Date();
@@ -173,6 +216,111 @@ public class ScanResult {
         this.followUpDate = followUpDate;
     }
 
+    public String getTopPredictions() {
+        return topPredictions;
+    }
+
+    public void setTopPredictions(String topPredictions) {
+        this.topPredictions = topPredictions;
+    }
+
+    /**
+     * Check if the full top-K model output was stored with this scan
+     */
+    public boolean hasTopPredictions() {
+        return topPredictions != null && !topPredictions.isEmpty();
+    }
+
+    public String getLesionHeatmap() {
+        return lesionHeatmap;
+    }
+
+    public void setLesionHeatmap(String lesionHeatmap) {
+        this.lesionHeatmap = lesionHeatmap;
+    }
+
+    public long getProcessingTimeMs() {
+        return processingTimeMs;
+    }
+
+    public void setProcessingTimeMs(long processingTimeMs) {
+        this.processingTimeMs = processingTimeMs;
+    }
+
+    public Float getTopMargin() {
+        return topMargin;
+    }
+
+    public void setTopMargin(Float topMargin) {
+        this.topMargin = topMargin;
+    }
+
+    public Float getEntropy() {
+        return entropy;
+    }
+
+    public void setEntropy(Float entropy) {
+        this.entropy = entropy;
+    }
+
+    public Float getQualityScore() {
+        return qualityScore;
+    }
+
+    public void setQualityScore(Float qualityScore) {
+        this.qualityScore = qualityScore;
+    }
+
+    public String getQualityIssue() {
+        return qualityIssue;
+    }
+
+    public void setQualityIssue(String qualityIssue) {
+        this.qualityIssue = qualityIssue;
+    }
+
+    public String getThumbnailSmallPath() {
+        return thumbnailSmallPath;
+    }
+
+    public void setThumbnailSmallPath(String thumbnailSmallPath) {
+        this.thumbnailSmallPath = thumbnailSmallPath;
+    }
+
+    public String getThumbnailMediumPath() {
+        return thumbnailMediumPath;
+    }
+
+    public void setThumbnailMediumPath(String thumbnailMediumPath) {
+        this.thumbnailMediumPath = thumbnailMediumPath;
+    }
+
+    /**
+     * Check if the photo was measured as blurry or badly exposed
+     */
+    public boolean isLowQuality() {
+        return qualityScore != null && qualityScore < LOW_QUALITY_SCORE;
+    }
+
+    /**
+     * Check if the model could not clearly separate the top classes.
+     * Scans without uncertainty data fall back to the confidence alone.
+     */
+    public boolean needsReview() {
+        if (topMargin == null && entropy == null) {
+            return confidence < REVIEW_MIN_CONFIDENCE;
+        }
+        return (topMargin != null && topMargin < REVIEW_MAX_MARGIN)
+                || (entropy != null && entropy > REVIEW_MIN_ENTROPY);
+    }
+
+    /**
+     * Check if the scan was analyzed tile by tile
+     */
+    public boolean hasLesionHeatmap() {
+        return lesionHeatmap != null && !lesionHeatmap.isEmpty();
+    }
+
     // Utility methods
 
     /**
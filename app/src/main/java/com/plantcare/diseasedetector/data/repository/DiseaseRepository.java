@@ -3,9 +3,11 @@ package com.plantcare.diseasedetector.data.repository;
 import android.content.Context;
 import android.util.Log;
 
+import com.plantcare.diseasedetector.PlantDiseaseApplication;
 import com.plantcare.diseasedetector.data.database.AppDatabase;
 import com.plantcare.diseasedetector.data.database.DiseaseInfoDao;
 import com.plantcare.diseasedetector.data.models.DiseaseInfo;
+import com.plantcare.diseasedetector.ml.LabelTable;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -276,6 +278,16 @@ public class DiseaseRepository {
     public void getDiseaseForPrediction(String predictedClass, RepositoryCallback<DiseaseInfo> callback) {
         executor.execute(() -> {
             try {
+                // Resolved once per model in the label table - a primary key lookup
+                LabelTable.Label label = findLabel(predictedClass);
+                if (label != null && label.hasDiseaseInfo()) {
+                    DiseaseInfo disease = diseaseInfoDao.getDiseaseInfoById(label.diseaseInfoId);
+                    if (disease != null) {
+                        if (callback != null) callback.onSuccess(disease);
+                        return;
+                    }
+                }
+
                 // Clean up the predicted class
                 String cleanedClass = cleanPredictedClass(predictedClass);
                 DiseaseInfo disease = diseaseInfoDao.getDiseaseInfoByPrediction(cleanedClass);
@@ -393,6 +405,17 @@ public class DiseaseRepository {
 
     // ===== UTILITY METHODS =====
 
+    /**
+     * Label table entry for a predicted class, if the model is known
+     */
+    private LabelTable.Label findLabel(String predictedClass) {
+        PlantDiseaseApplication app = PlantDiseaseApplication.getInstance();
+        if (app == null || app.getModelManager() == null) return null;
+
+        LabelTable labels = app.getModelManager().getLabelTable();
+        return labels != null ? labels.findByClassName(predictedClass) : null;
+    }
+
     /**
      * Clean predicted class for database search
      */
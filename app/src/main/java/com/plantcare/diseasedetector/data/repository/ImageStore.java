@@ -0,0 +1,228 @@
+package com.plantcare.diseasedetector.data.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.plantcare.diseasedetector.data.database.AppDatabase;
+import com.plantcare.diseasedetector.data.models.ScanResult;
+import com.plantcare.diseasedetector.utils.ImageUtils;
+import com.plantcare.diseasedetector.utils.ThumbnailCache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Content-addressed storage for scan photos
+ * Photos are named after the SHA-256 of their bytes, so re-scanning the same photo or
+ * importing it twice from the gallery stores it once. There is no separate counter:
+ * the scan_results rows pointing at a file are its references, and release() deletes
+ * the file (and its list thumbnails) only when none are left.
+ *
+ * Every path handed out by store() or adopt() also carries a pending reference until
+ * settle() is called for it, so a blob that is reused before its new row is inserted
+ * cannot be released by a concurrent delete. ScanPersister settles after the insert.
+ *
+ * All methods do file or database I/O - call them from a background thread.
+ */
+public class ImageStore {
+
+    private static final String TAG = "ImageStore";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String EXTENSION = ".jpg";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Context context;
+    private final AppDatabase database;
+    private final Object lock = new Object(); // Orders adding a blob against releasing it
+    private final Map<String, Integer> pendingReferences = new HashMap<>(); // Guarded by lock
+
+    // Singleton instance
+    private static volatile ImageStore INSTANCE;
+
+    private ImageStore(Context context) {
+        this.context = context;
+        this.database = AppDatabase.getInstance(context);
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static ImageStore getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ImageStore.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ImageStore(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Store an encoded photo held in memory and return its path
+     */
+    public String store(byte[] jpeg) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(jpeg);
+        File blob = blobFile(digest);
+
+        synchronized (lock) {
+            if (blob.exists() && blob.length() == jpeg.length) {
+                Log.d(TAG, "Already stored: " + blob.getName());
+                return retain(blob);
+            }
+        }
+
+        File temp = createTempFile();
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(jpeg);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        return commit(temp, blob);
+    }
+
+    /**
+     * Copy a stream into the store (gallery imports) and return the photo's path
+     */
+    public String store(InputStream in) throws IOException {
+        MessageDigest digest = newDigest();
+        File temp = createTempFile();
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            copy(in, out, digest);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        return commit(temp, blobFile(digest));
+    }
+
+    /**
+     * Move a photo written elsewhere (e.g. by CameraX) into the store and return its new path
+     */
+    public String adopt(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (FileInputStream in = new FileInputStream(file)) {
+            copy(in, null, digest);
+        }
+        return commit(file, blobFile(digest));
+    }
+
+    /**
+     * Drop the pending reference of a path returned by store() or adopt() - call once the
+     * scan row referencing it is inserted, or once it is clear none will be
+     */
+    public void settle(String imagePath) {
+        if (imagePath == null || imagePath.isEmpty()) return;
+
+        synchronized (lock) {
+            Integer count = pendingReferences.get(imagePath);
+            if (count == null) return;
+            if (count > 1) {
+                pendingReferences.put(imagePath, count - 1);
+            } else {
+                pendingReferences.remove(imagePath);
+            }
+        }
+    }
+
+    /**
+     * Remove a deleted scan's photo and list thumbnails unless another scan still uses them
+     * or is about to. Call after the scan row is deleted, or after its insert failed.
+     */
+    public void release(ScanResult scanResult) {
+        String imagePath = scanResult.getImagePath();
+        if (imagePath == null || imagePath.isEmpty()) return;
+
+        synchronized (lock) {
+            if (pendingReferences.containsKey(imagePath)) {
+                Log.d(TAG, "Kept " + new File(imagePath).getName() + " - a scan of it is being saved");
+                return;
+            }
+            int references = database.scanResultDao().countScansWithImage(imagePath);
+            if (references > 0) {
+                Log.d(TAG, "Kept " + new File(imagePath).getName() + " - " + references + " scans remain");
+                return;
+            }
+            File imageFile = new File(imagePath);
+            if (imageFile.exists() && !imageFile.delete()) {
+                Log.w(TAG, "Could not delete image file: " + imagePath);
+            }
+        }
+        ThumbnailCache.getInstance(context).deleteScanThumbnails(scanResult);
+    }
+
+    /**
+     * Move a fully written file to its content address, or drop it if the blob exists.
+     * The returned path carries a pending reference.
+     */
+    private String commit(File source, File blob) throws IOException {
+        synchronized (lock) {
+            if (blob.exists()) {
+                source.delete();
+                Log.d(TAG, "Deduplicated " + blob.getName());
+            } else if (!source.renameTo(blob)) {
+                source.delete();
+                throw new IOException("Could not move image into store: " + blob.getName());
+            }
+            return retain(blob);
+        }
+    }
+
+    /**
+     * Add a pending reference to blob and return its path - call with lock held
+     */
+    private String retain(File blob) {
+        String path = blob.getAbsolutePath();
+        Integer count = pendingReferences.get(path);
+        pendingReferences.put(path, count == null ? 1 : count + 1);
+        return path;
+    }
+
+    private File blobFile(MessageDigest digest) throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (byte b : digest.digest()) {
+            name.append(String.format("%02x", b));
+        }
+        return new File(directory(), name.append(EXTENSION).toString());
+    }
+
+    private File createTempFile() throws IOException {
+        return File.createTempFile("import_", ".tmp", directory());
+    }
+
+    private File directory() throws IOException {
+        File directory = ImageUtils.getImageDirectory(context);
+        if (directory == null) {
+            throw new IOException("Image directory unavailable");
+        }
+        return directory;
+    }
+
+    private static void copy(InputStream in, FileOutputStream out, MessageDigest digest) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+            if (out != null) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(HASH_ALGORITHM + " unavailable", e);
+        }
+    }
+}
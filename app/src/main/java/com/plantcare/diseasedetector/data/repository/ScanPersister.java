@@ -0,0 +1,188 @@
+package com.plantcare.diseasedetector.data.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.plantcare.diseasedetector.data.database.AppDatabase;
+import com.plantcare.diseasedetector.data.models.ScanResult;
+import com.plantcare.diseasedetector.ml.InferenceMetrics;
+import com.plantcare.diseasedetector.utils.ThumbnailCache;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Last stage of the scan pipeline: stores the captured JPEG, writes the list thumbnails
+ * and inserts the scan row in the background, so the results screen can open as soon
+ * as inference finishes.
+ * Work runs in submission order on one thread; at most MAX_PENDING scans (and their
+ * JPEG bytes) wait at a time, after which persist() blocks the calling stage.
+ *
+ * Process-wide, so writes complete even when the capturing screen is closed.
+ */
+public class ScanPersister {
+
+    private static final String TAG = "ScanPersister";
+    private static final int MAX_PENDING = 4;   // Bounds JPEGs held in memory (~3MB each)
+    private static final int MAX_RECENT = 16;   // Scans kept for lookup by token
+
+    private final AppDatabase database;
+    private final ThumbnailCache thumbnailCache;
+    private final ImageStore imageStore;
+    private final ExecutorService executor;
+    private final Semaphore slots = new Semaphore(MAX_PENDING);
+    private final AtomicLong tokens = new AtomicLong();
+    private final Map<Long, PendingScan> recent = Collections.synchronizedMap(
+            new LinkedHashMap<Long, PendingScan>(MAX_RECENT, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, PendingScan> eldest) {
+                    return size() > MAX_RECENT;
+                }
+            });
+
+    // Singleton instance
+    private static volatile ScanPersister INSTANCE;
+
+    private ScanPersister(Context context) {
+        this.database = AppDatabase.getInstance(context);
+        this.thumbnailCache = ThumbnailCache.getInstance(context);
+        this.imageStore = ImageStore.getInstance(context);
+        this.executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "ScanPersister"));
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static ScanPersister getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ScanPersister.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ScanPersister(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Queue a scan for saving
+     *
+     * @param jpeg encoded image to add to the ImageStore - the scan's image path is set
+     *             once it is stored - or null if the path already points at a stored file.
+     *             Either way the path's pending ImageStore reference is settled after the insert.
+     * @throws InterruptedException if interrupted while waiting for a free slot
+     */
+    public PendingScan persist(ScanResult scanResult, byte[] jpeg) throws InterruptedException {
+        slots.acquire();
+        PendingScan pending = new PendingScan(tokens.incrementAndGet(), scanResult, jpeg == null);
+        recent.put(pending.token, pending);
+
+        executor.execute(() -> {
+            try {
+                if (jpeg != null) {
+                    try {
+                        scanResult.setImagePath(imageStore.store(jpeg));
+                    } catch (IOException e) {
+                        pending.imageFailed = true;
+                        throw e;
+                    } finally {
+                        pending.imageWritten.countDown();
+                    }
+                }
+
+                thumbnailCache.writeScanThumbnails(scanResult);
+
+                long insertStart = System.nanoTime();
+                long scanId = database.scanResultDao().insertScanResult(scanResult);
+                InferenceMetrics.getInstance().recordNanos(InferenceMetrics.Stage.DB_INSERT,
+                        System.nanoTime() - insertStart);
+                scanResult.setId((int) scanId);
+                pending.id = (int) scanId;
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to save scan " + pending.token, e);
+                pending.failed = true;
+            } finally {
+                // The row (if any) now references the image, so it no longer needs protecting
+                imageStore.settle(scanResult.getImagePath());
+                if (pending.failed) {
+                    discardImage(scanResult);
+                }
+                pending.saved.countDown();
+                slots.release();
+            }
+        });
+        return pending;
+    }
+
+    /**
+     * Delete the photo and thumbnails of a scan that was not saved, unless another scan uses them
+     */
+    private void discardImage(ScanResult scanResult) {
+        try {
+            imageStore.release(scanResult);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not discard image of unsaved scan", e);
+        }
+    }
+
+    /**
+     * Look up a recently queued scan, or null if it is no longer tracked
+     */
+    public PendingScan get(long token) {
+        return recent.get(token);
+    }
+
+    /**
+     * A scan whose image and database row may still be being written
+     */
+    public static class PendingScan {
+        public final long token;
+        private final ScanResult scanResult;
+        private final CountDownLatch imageWritten = new CountDownLatch(1);
+        private final CountDownLatch saved = new CountDownLatch(1);
+        private volatile int id = -1;
+        private volatile boolean failed = false;
+        private volatile boolean imageFailed = false;
+
+        PendingScan(long token, ScanResult scanResult, boolean imageOnDisk) {
+            this.token = token;
+            this.scanResult = scanResult;
+            if (imageOnDisk) {
+                imageWritten.countDown();
+            }
+        }
+
+        /**
+         * The scan as produced by inference - its id is set once saved
+         */
+        public ScanResult getScanResult() {
+            return scanResult;
+        }
+
+        /**
+         * Wait until the image is stored and the scan's image path is set; false on timeout or failure
+         */
+        public boolean awaitImage(long timeoutMs) throws InterruptedException {
+            return imageWritten.await(timeoutMs, TimeUnit.MILLISECONDS) && !imageFailed;
+        }
+
+        /**
+         * Wait for the database row; returns its id, or -1 on timeout or failure
+         */
+        public int awaitSaved(long timeoutMs) throws InterruptedException {
+            return saved.await(timeoutMs, TimeUnit.MILLISECONDS) ? id : -1;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+    }
+}
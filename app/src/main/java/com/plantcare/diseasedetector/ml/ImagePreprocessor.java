@@ -0,0 +1,148 @@
+package com.plantcare.diseasedetector.ml;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import com.plantcare.diseasedetector.ml.core.PixelNormalizer;
+
+import org.pytorch.Tensor;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Reusable preprocessing engine for the classifier input
+ * Owns the scaled bitmap, pixel/float scratch buffers and a direct input tensor,
+ * so a steady stream of predictions does not allocate on the Java heap.
+ *
+ * Not thread-safe - one instance per inference thread.
+ */
+public class ImagePreprocessor {
+
+    public static final int INPUT_SIZE = 224;
+    public static final int PLANE_SIZE = INPUT_SIZE * INPUT_SIZE;
+    public static final int TENSOR_SIZE = 3 * PLANE_SIZE;
+
+    // Pooled buffers
+    private final Bitmap scaledBitmap;
+    private final Canvas canvas;
+    private final Paint paint;
+    private final Rect targetRect;
+    private final RectF targetBounds;
+    private final RectF sourceBounds = new RectF();
+    private final Matrix transform = new Matrix();
+    private final Matrix fit = new Matrix();
+    private final int[] pixels;
+    private final float[] chwBuffer;
+    private final FloatBuffer inputBuffer;
+    private final Tensor inputTensor;
+
+    public ImagePreprocessor() {
+        scaledBitmap = Bitmap.createBitmap(INPUT_SIZE, INPUT_SIZE, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(scaledBitmap);
+        paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC)); // Overwrite, never blend with the last frame
+        targetRect = new Rect(0, 0, INPUT_SIZE, INPUT_SIZE);
+        targetBounds = new RectF(targetRect);
+        pixels = new int[PLANE_SIZE];
+        chwBuffer = new float[TENSOR_SIZE];
+
+        // Direct, native-ordered buffer - Tensor.fromBlob wraps it without copying
+        inputBuffer = Tensor.allocateFloatBuffer(TENSOR_SIZE);
+        inputTensor = Tensor.fromBlob(inputBuffer, new long[]{1, 3, INPUT_SIZE, INPUT_SIZE});
+    }
+
+    /**
+     * Scale and normalize a bitmap into the shared input tensor.
+     * The returned tensor is overwritten by the next call.
+     */
+    public Tensor preprocess(Bitmap bitmap) {
+        loadPixels(bitmap);
+        return fillInputTensor();
+    }
+
+    /**
+     * Normalize the pixels from the last loadPixels() call into the shared input tensor
+     */
+    public Tensor fillInputTensor() {
+        writeChw(pixels, chwBuffer, 0);
+
+        inputBuffer.clear();
+        inputBuffer.put(chwBuffer);
+        inputBuffer.rewind();
+
+        return inputTensor;
+    }
+
+    /**
+     * Scale and normalize a bitmap, appending its CHW data at the target's position.
+     * Used to fill one slot of a batched [N, 3, 224, 224] buffer.
+     */
+    public void preprocessInto(Bitmap bitmap, FloatBuffer target) {
+        preprocessInto(bitmap, 0, target);
+    }
+
+    /**
+     * Like preprocessInto(bitmap, target), rotating the bitmap clockwise while it is scaled
+     */
+    public void preprocessInto(Bitmap bitmap, int rotationDegrees, FloatBuffer target) {
+        loadPixels(bitmap, rotationDegrees);
+        writeChw(pixels, chwBuffer, 0);
+        target.put(chwBuffer);
+    }
+
+    /**
+     * Scale a bitmap into the pooled 224x224 surface and read back its ARGB pixels
+     */
+    public int[] loadPixels(Bitmap bitmap) {
+        canvas.drawBitmap(bitmap, null, targetRect, paint);
+        scaledBitmap.getPixels(pixels, 0, INPUT_SIZE, 0, 0, INPUT_SIZE, INPUT_SIZE);
+        return pixels;
+    }
+
+    /**
+     * Rotate a bitmap clockwise (a multiple of 90 degrees) while scaling it into the pooled
+     * surface - for raw-orientation input such as region-decoded tiles - and read back its pixels
+     */
+    public int[] loadPixels(Bitmap bitmap, int rotationDegrees) {
+        if (rotationDegrees % 360 == 0) {
+            return loadPixels(bitmap);
+        }
+
+        transform.setRotate(rotationDegrees);
+        sourceBounds.set(0, 0, bitmap.getWidth(), bitmap.getHeight());
+        transform.mapRect(sourceBounds);
+        fit.setRectToRect(sourceBounds, targetBounds, Matrix.ScaleToFit.FILL);
+        transform.postConcat(fit);
+
+        canvas.drawBitmap(bitmap, transform, paint);
+        scaledBitmap.getPixels(pixels, 0, INPUT_SIZE, 0, 0, INPUT_SIZE, INPUT_SIZE);
+        return pixels;
+    }
+
+    /**
+     * Pixels of the most recently preprocessed image (224x224 ARGB)
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Input tensor backed by the pooled direct buffer
+     */
+    public Tensor getInputTensor() {
+        return inputTensor;
+    }
+
+    /**
+     * Convert ARGB pixels to normalized float values in CHW format (Channels-Height-Width)
+     */
+    public static void writeChw(int[] pixels, float[] out, int offset) {
+        PixelNormalizer.writeChw(pixels, PLANE_SIZE, out, offset);
+    }
+}
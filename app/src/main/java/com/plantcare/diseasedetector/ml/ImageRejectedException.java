@@ -0,0 +1,44 @@
+package com.plantcare.diseasedetector.ml;
+
+import com.plantcare.diseasedetector.ml.core.ImageQuality;
+import com.plantcare.diseasedetector.ml.core.LeafGate;
+
+/**
+ * Thrown when a screened image is rejected before the forward pass,
+ * either because it shows no plant or because it is too blurry or badly exposed
+ */
+public class ImageRejectedException extends RuntimeException {
+
+    private final LeafGate.Reason reason;
+    private final ImageQuality.Issue qualityIssue;
+
+    public ImageRejectedException(LeafGate.Reason reason) {
+        super(reason.message);
+        this.reason = reason;
+        this.qualityIssue = null;
+    }
+
+    public ImageRejectedException(ImageQuality.Issue qualityIssue) {
+        super(qualityIssue.message);
+        this.reason = null;
+        this.qualityIssue = qualityIssue;
+    }
+
+    /**
+     * Leaf gate outcome, or null for quality rejections
+     */
+    public LeafGate.Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * Quality problem, or null if the leaf gate rejected the image
+     */
+    public ImageQuality.Issue getQualityIssue() {
+        return qualityIssue;
+    }
+
+    public boolean isQualityRejection() {
+        return qualityIssue != null;
+    }
+}
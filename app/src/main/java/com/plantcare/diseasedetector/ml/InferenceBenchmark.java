@@ -0,0 +1,335 @@
+package com.plantcare.diseasedetector.ml;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Debug;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-device microbenchmarks for the inference pipeline
+ * Measures per-iteration latency and Java heap allocations on the calling thread.
+ * Run from Settings > Diagnostics > Run Benchmarks in debug builds.
+ */
+public class InferenceBenchmark {
+
+    private static final String TAG = "InferenceBenchmark";
+    private static final int WARMUP_ITERATIONS = 10;
+
+    /**
+     * Benchmark the pooled preprocessing path.
+     * A steady state of 0 allocations per iteration is expected.
+     */
+    public static Result benchmarkPreprocessing(int iterations) {
+        Bitmap source = createSampleBitmap(1024, 768);
+        ImagePreprocessor preprocessor = new ImagePreprocessor();
+
+        try {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                preprocessor.preprocess(source);
+            }
+
+            startAllocCounting();
+            long startTime = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                preprocessor.preprocess(source);
+            }
+            long elapsed = System.nanoTime() - startTime;
+            int[] allocs = stopAllocCounting();
+
+            Result result = new Result("preprocess", iterations, elapsed, allocs[0], allocs[1]);
+            Log.i(TAG, result.toString());
+            return result;
+        } finally {
+            source.recycle();
+        }
+    }
+
+    /**
+     * Benchmark full predictions (preprocess + forward pass + postprocess).
+     * Bypasses the prediction cache and test-time augmentation, which would otherwise
+     * turn repeated runs over the same image into cache hits.
+     */
+    public static Result benchmarkPrediction(PlantDiseaseClassifier classifier, int iterations) {
+        if (classifier == null || !classifier.isModelLoaded()) {
+            Log.w(TAG, "Classifier not loaded - skipping prediction benchmark");
+            return null;
+        }
+
+        Bitmap source = createSampleBitmap(1024, 768);
+
+        try {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                classifier.predictSinglePass(source);
+            }
+
+            startAllocCounting();
+            long startTime = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                classifier.predictSinglePass(source);
+            }
+            long elapsed = System.nanoTime() - startTime;
+            int[] allocs = stopAllocCounting();
+
+            Result result = new Result("predict", iterations, elapsed, allocs[0], allocs[1]);
+            Log.i(TAG, result.toString());
+            return result;
+        } finally {
+            source.recycle();
+        }
+    }
+
+    /**
+     * Compare N sequential single-pass predictions against one predictBatch() of N images
+     * (neither side uses the prediction cache or test-time augmentation)
+     */
+    public static BatchComparison benchmarkBatch(PlantDiseaseClassifier classifier, int batchSize, int rounds) {
+        if (classifier == null || !classifier.isModelLoaded() || batchSize <= 0 || rounds <= 0) {
+            Log.w(TAG, "Classifier not loaded - skipping batch benchmark");
+            return null;
+        }
+
+        List<Bitmap> images = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            images.add(createSampleBitmap(640 + i * 16, 480));
+        }
+
+        try {
+            // Warm up both paths
+            classifier.predictSinglePass(images.get(0));
+            classifier.predictBatch(images);
+
+            long sequentialStart = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (Bitmap image : images) {
+                    classifier.predictSinglePass(image);
+                }
+            }
+            long sequentialNanos = System.nanoTime() - sequentialStart;
+
+            long batchStart = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                classifier.predictBatch(images);
+            }
+            long batchNanos = System.nanoTime() - batchStart;
+
+            BatchComparison comparison = new BatchComparison(batchSize, rounds, sequentialNanos, batchNanos);
+            Log.i(TAG, comparison.toString());
+            return comparison;
+        } finally {
+            for (Bitmap image : images) {
+                image.recycle();
+            }
+        }
+    }
+
+    /**
+     * Run every bundled model variant over the same images and compare latency
+     * and top-1 agreement against the full precision model.
+     * Loads each variant in turn, so call from a background thread with the
+     * shared model idle. Pass real scans - agreement on synthetic images means little.
+     */
+    public static List<VariantComparison> compareVariants(Context context, List<Bitmap> images) {
+        List<VariantComparison> comparisons = new ArrayList<>();
+        if (images == null || images.isEmpty()) {
+            return comparisons;
+        }
+
+        int[] referenceClasses = null;
+        float[] referenceConfidences = null;
+
+        for (ModelVariant variant : ModelVariant.values()) {
+            if (!variant.isBundled(context)) continue;
+
+            PlantDiseaseClassifier classifier = new PlantDiseaseClassifier(context, variant);
+            if (!classifier.loadModel()) {
+                Log.w(TAG, "Variant " + variant.key + " failed to load - skipping");
+                continue;
+            }
+
+            try {
+                // Single passes only - augmentation would blur the per-variant latency
+                classifier.setPredictionMode(PlantDiseaseClassifier.PredictionMode.STANDARD);
+                classifier.warmUp(2);
+
+                int[] classes = new int[images.size()];
+                float[] confidences = new float[images.size()];
+                long totalNanos = 0;
+                int completed = 0;
+
+                for (int i = 0; i < images.size(); i++) {
+                    long start = System.nanoTime();
+                    PlantDiseaseClassifier.PredictionResult result = classifier.predict(images.get(i));
+                    totalNanos += System.nanoTime() - start;
+
+                    classes[i] = result != null ? result.classIndex : -1;
+                    confidences[i] = result != null ? result.confidence : 0f;
+                    if (result != null) completed++;
+                }
+
+                // The first variant (full precision) is the reference
+                if (referenceClasses == null) {
+                    referenceClasses = classes;
+                    referenceConfidences = confidences;
+                }
+
+                int agreeing = 0;
+                float confidenceDelta = 0f;
+                for (int i = 0; i < classes.length; i++) {
+                    if (classes[i] >= 0 && classes[i] == referenceClasses[i]) agreeing++;
+                    confidenceDelta += Math.abs(confidences[i] - referenceConfidences[i]);
+                }
+
+                VariantComparison comparison = new VariantComparison(variant, images.size(), completed,
+                        totalNanos, (float) agreeing / images.size(), confidenceDelta / images.size());
+                Log.i(TAG, comparison.toString());
+                comparisons.add(comparison);
+            } finally {
+                classifier.release();
+            }
+        }
+
+        return comparisons;
+    }
+
+    /**
+     * Create a synthetic leaf-coloured gradient bitmap
+     */
+    static Bitmap createSampleBitmap(int width, int height) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                row[x] = Color.rgb((x * 97) & 0x7F, 96 + ((x + y) & 0x7F), (y * 31) & 0x3F);
+            }
+            bitmap.setPixels(row, 0, width, 0, y, width, 1);
+        }
+        return bitmap;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void startAllocCounting() {
+        Debug.resetThreadAllocCount();
+        Debug.resetThreadAllocSize();
+        Debug.startAllocCounting();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int[] stopAllocCounting() {
+        Debug.stopAllocCounting();
+        return new int[]{Debug.getThreadAllocCount(), Debug.getThreadAllocSize()};
+    }
+
+    /**
+     * Benchmark result
+     */
+    public static class Result {
+        public final String name;
+        public final int iterations;
+        public final long totalNanos;
+        public final int allocCount;
+        public final int allocBytes;
+
+        public Result(String name, int iterations, long totalNanos, int allocCount, int allocBytes) {
+            this.name = name;
+            this.iterations = iterations;
+            this.totalNanos = totalNanos;
+            this.allocCount = allocCount;
+            this.allocBytes = allocBytes;
+        }
+
+        public double getAverageMillis() {
+            return iterations > 0 ? totalNanos / 1_000_000.0 / iterations : 0;
+        }
+
+        public double getAllocationsPerIteration() {
+            return iterations > 0 ? (double) allocCount / iterations : 0;
+        }
+
+        public double getBytesPerIteration() {
+            return iterations > 0 ? (double) allocBytes / iterations : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d iterations, %.2f ms/op, %.1f allocs/op, %.0f B/op",
+                    name, iterations, getAverageMillis(), getAllocationsPerIteration(), getBytesPerIteration());
+        }
+    }
+
+    /**
+     * Sequential vs batched inference comparison
+     */
+    public static class BatchComparison {
+        public final int batchSize;
+        public final int rounds;
+        public final long sequentialNanos;
+        public final long batchNanos;
+
+        public BatchComparison(int batchSize, int rounds, long sequentialNanos, long batchNanos) {
+            this.batchSize = batchSize;
+            this.rounds = rounds;
+            this.sequentialNanos = sequentialNanos;
+            this.batchNanos = batchNanos;
+        }
+
+        public double getSequentialMillisPerImage() {
+            return sequentialNanos / 1_000_000.0 / (batchSize * rounds);
+        }
+
+        public double getBatchMillisPerImage() {
+            return batchNanos / 1_000_000.0 / (batchSize * rounds);
+        }
+
+        public double getSequentialImagesPerSecond() {
+            return sequentialNanos > 0 ? batchSize * rounds * 1_000_000_000.0 / sequentialNanos : 0;
+        }
+
+        public double getBatchImagesPerSecond() {
+            return batchNanos > 0 ? batchSize * rounds * 1_000_000_000.0 / batchNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("batch N=%d x %d: sequential %.2f ms/image (%.1f img/s), batched %.2f ms/image (%.1f img/s)",
+                    batchSize, rounds,
+                    getSequentialMillisPerImage(), getSequentialImagesPerSecond(),
+                    getBatchMillisPerImage(), getBatchImagesPerSecond());
+        }
+    }
+
+    /**
+     * Latency and accuracy of one model variant relative to full precision
+     */
+    public static class VariantComparison {
+        public final ModelVariant variant;
+        public final int images;
+        public final int completed;
+        public final long totalNanos;
+        public final float top1Agreement;       // Fraction of images with the same top-1 class as fp32
+        public final float meanConfidenceDelta; // Mean |confidence - fp32 confidence|
+
+        public VariantComparison(ModelVariant variant, int images, int completed, long totalNanos,
+                                 float top1Agreement, float meanConfidenceDelta) {
+            this.variant = variant;
+            this.images = images;
+            this.completed = completed;
+            this.totalNanos = totalNanos;
+            this.top1Agreement = top1Agreement;
+            this.meanConfidenceDelta = meanConfidenceDelta;
+        }
+
+        public double getAverageMillis() {
+            return images > 0 ? totalNanos / 1_000_000.0 / images : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %.1f ms/image, top-1 agreement %.1f%%, confidence delta %.3f (%d/%d images)",
+                    variant.key, getAverageMillis(), top1Agreement * 100, meanConfidenceDelta, completed, images);
+        }
+    }
+}
@@ -0,0 +1,580 @@
+package com.plantcare.diseasedetector.ml;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.plantcare.diseasedetector.utils.BitmapPool;
+
+import org.pytorch.Tensor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-threaded inference service shared by all screens
+ * Requests are queued by priority: explicit captures are always delivered in order,
+ * live frames use a latest-wins slot so a slow model never builds up a backlog.
+ * Every request returns a Future that can be cancelled, and reports its timing.
+ *
+ * Owned by PlantDiseaseApplication.
+ */
+public class InferenceEngine {
+
+    private static final String TAG = "InferenceEngine";
+    private static final int MAX_PENDING_CAPTURES = 8;
+    private static final long MODEL_WAIT_TIMEOUT_MS = 30000;
+
+    /**
+     * Request priority - lower ordinal runs first
+     */
+    public enum Priority {
+        CAPTURE,  // User-initiated, guaranteed delivery
+        LIVE      // Preview frames, superseded by newer ones
+    }
+
+    private final ModelManager modelManager;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object lock = new Object();
+    private final List<InferenceTask> activeTasks = new ArrayList<>();
+
+    private InferenceTask pendingLive;
+    private int pendingCaptures = 0;
+
+    // Metrics
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private volatile Timing lastTiming;
+
+    public InferenceEngine(ModelManager modelManager) {
+        this.modelManager = modelManager;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>(), r -> {
+                    Thread thread = new Thread(r, "InferenceWorker");
+                    thread.setPriority(Thread.NORM_PRIORITY);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queue a prediction. The source is decoded on the inference thread and the
+     * bitmap goes back to the BitmapPool afterwards. The callback runs on the inference thread and
+     * is not invoked for cancelled or superseded requests.
+     *
+     * @param owner tag used by cancel(Object), usually the submitting Activity
+     */
+    public Future<PlantDiseaseClassifier.PredictionResult> submit(Priority priority, Object owner,
+                                                                  BitmapSource source,
+                                                                  InferenceCallback callback) {
+        return enqueue(priority, owner, timing -> runPrediction(source, timing), callback);
+    }
+
+    /**
+     * Queue a prediction on a bitmap decoded by an earlier pipeline stage. The bitmap
+     * returns to the BitmapPool after classification. Callback semantics are the same as submit().
+     */
+    public Future<PlantDiseaseClassifier.PredictionResult> submitBitmap(Priority priority, Object owner,
+                                                                        Bitmap bitmap,
+                                                                        InferenceCallback callback) {
+        return enqueue(priority, owner, timing -> runBitmapPrediction(bitmap, timing), callback);
+    }
+
+    /**
+     * Queue a prediction on an already normalized input tensor (live camera frames).
+     * The caller must not overwrite the tensor until the returned Future completes.
+     */
+    public Future<PlantDiseaseClassifier.PredictionResult> submitTensor(Priority priority, Object owner,
+                                                                        Tensor inputTensor,
+                                                                        InferenceCallback callback) {
+        return enqueue(priority, owner, timing -> runTensorPrediction(inputTensor, timing), callback);
+    }
+
+    /**
+     * Queue a tiled analysis of a large photo. The preview source is decoded and screened
+     * first, so rejected images cost no tile passes. Delivers a TiledPredictionResult,
+     * or a regular prediction of the preview when the image cannot be tiled.
+     */
+    public Future<PlantDiseaseClassifier.PredictionResult> submitTiled(Priority priority, Object owner,
+                                                                       String imagePath, BitmapSource preview,
+                                                                       InferenceCallback callback) {
+        return enqueue(priority, owner, timing -> runTiledPrediction(imagePath, preview, timing), callback);
+    }
+
+    /**
+     * Queue one combined analysis of several photos of the same plant. Every source is
+     * decoded on the inference thread and classified in a single batched forward pass;
+     * delivers a BatchPredictionResult. Sources that fail to decode are skipped.
+     */
+    public Future<PlantDiseaseClassifier.PredictionResult> submitBatch(Priority priority, Object owner,
+                                                                       List<BitmapSource> sources,
+                                                                       InferenceCallback callback) {
+        return enqueue(priority, owner, timing -> runBatchPrediction(sources, timing), callback);
+    }
+
+    /**
+     * Apply the queue policy and hand the task to the worker
+     */
+    private InferenceTask enqueue(Priority priority, Object owner, Work work, InferenceCallback callback) {
+        InferenceTask task = new InferenceTask(priority, owner, work, callback, new Timing());
+        InferenceTask superseded = null;
+
+        synchronized (lock) {
+            if (priority == Priority.LIVE) {
+                superseded = pendingLive;
+                pendingLive = task;
+            } else if (pendingCaptures >= MAX_PENDING_CAPTURES) {
+                Log.w(TAG, "Capture queue full - rejecting request");
+                task.cancel(false);
+                if (callback != null) {
+                    callback.onError("Analysis queue is full - please wait");
+                }
+                return task;
+            } else {
+                pendingCaptures++;
+            }
+            task.queued = true;
+            activeTasks.add(task);
+        }
+
+        if (superseded != null && superseded.cancel(false)) {
+            executor.remove(superseded);
+            droppedCount.incrementAndGet();
+        }
+
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Cancel every queued or running request submitted by the owner
+     */
+    public void cancel(Object owner) {
+        List<InferenceTask> toCancel = new ArrayList<>();
+        synchronized (lock) {
+            for (InferenceTask task : activeTasks) {
+                if (task.owner == owner) {
+                    toCancel.add(task);
+                }
+            }
+        }
+
+        for (InferenceTask task : toCancel) {
+            if (task.cancel(true)) {
+                executor.remove(task);
+                cancelledCount.incrementAndGet();
+            }
+        }
+
+        if (!toCancel.isEmpty()) {
+            Log.d(TAG, "Cancelled " + toCancel.size() + " inference requests");
+        }
+    }
+
+    /**
+     * Number of requests waiting to run
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    /**
+     * Live frames replaced by a newer frame before they ran
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    /**
+     * Timing of the most recently completed request, or null
+     */
+    public Timing getLastTiming() {
+        return lastTiming;
+    }
+
+    /**
+     * Human readable engine statistics
+     */
+    public String getStats() {
+        return String.format("Inference engine: %d completed, %d dropped, %d cancelled, %d queued, last %s",
+                getCompletedCount(), getDroppedCount(), getCancelledCount(), getQueueSize(),
+                lastTiming != null ? lastTiming.toString() : "n/a");
+    }
+
+    /**
+     * Stop the worker thread and drop all pending requests
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Wait on the inference thread for the shared model to become ready
+     */
+    private PlantDiseaseClassifier awaitModel() throws InterruptedException {
+        PlantDiseaseClassifier ready = modelManager.getModelIfReady();
+        if (ready != null) {
+            return ready;
+        }
+
+        final PlantDiseaseClassifier[] holder = new PlantDiseaseClassifier[1];
+        final CountDownLatch latch = new CountDownLatch(1);
+        modelManager.getModel(new ModelManager.ModelCallback() {
+            @Override
+            public void onModelReady(PlantDiseaseClassifier classifier) {
+                holder[0] = classifier;
+                latch.countDown();
+            }
+
+            @Override
+            public void onModelError(String error) {
+                latch.countDown();
+            }
+        });
+
+        latch.await(MODEL_WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        return holder[0];
+    }
+
+    /**
+     * Book-keeping when a task leaves the queue for the worker
+     */
+    private void onTaskStarted(InferenceTask task) {
+        synchronized (lock) {
+            task.queued = false;
+            if (pendingLive == task) {
+                pendingLive = null;
+            } else if (task.priority == Priority.CAPTURE) {
+                pendingCaptures--;
+            }
+        }
+    }
+
+    /**
+     * Book-keeping when a task completes or is cancelled
+     */
+    private void onTaskFinished(InferenceTask task) {
+        synchronized (lock) {
+            activeTasks.remove(task);
+            if (task.queued) {
+                task.queued = false;
+                if (pendingLive == task) {
+                    pendingLive = null;
+                } else if (task.priority == Priority.CAPTURE) {
+                    pendingCaptures--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Queued prediction, ordered by priority then submission order
+     */
+    private class InferenceTask extends FutureTask<PlantDiseaseClassifier.PredictionResult>
+            implements Comparable<InferenceTask> {
+
+        final Priority priority;
+        final Object owner;
+        final long order;
+        final Timing timing;
+        final InferenceCallback callback;
+        boolean queued = false;  // Counted towards the pending limits, guarded by lock
+
+        InferenceTask(Priority priority, Object owner, Work work,
+                      InferenceCallback callback, Timing timing) {
+            super(() -> work.run(timing));
+            this.priority = priority;
+            this.owner = owner;
+            this.order = sequence.incrementAndGet();
+            this.timing = timing;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            if (isCancelled()) return;
+            onTaskStarted(this);
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            onTaskFinished(this);
+            if (isCancelled() || callback == null) return;
+
+            try {
+                PlantDiseaseClassifier.PredictionResult result = get();
+                completedCount.incrementAndGet();
+                lastTiming = timing;
+                if (priority == Priority.CAPTURE) {
+                    InferenceMetrics.getInstance().recordMillis(InferenceMetrics.Stage.TOTAL, timing.totalMs);
+                }
+                callback.onResult(result, timing);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof ImageRejectedException) {
+                    callback.onRejected((ImageRejectedException) cause);
+                    return;
+                }
+                Log.e(TAG, "Inference request failed", cause);
+                callback.onError(cause.getMessage() != null ? cause.getMessage() : "AI analysis failed");
+            } catch (CancellationException | InterruptedException e) {
+                // Cancelled while finishing - nothing to deliver
+            } catch (Exception e) {
+                Log.w(TAG, "Error in inference callback", e);
+            }
+        }
+
+        @Override
+        public int compareTo(InferenceTask other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * Decode and classify one request (inference thread)
+     */
+    private PlantDiseaseClassifier.PredictionResult runPrediction(BitmapSource source, Timing timing)
+            throws Exception {
+        long startTime = SystemClock.elapsedRealtime();
+        timing.queueMs = startTime - timing.submitTime;
+
+        PlantDiseaseClassifier classifier = awaitModel();
+        if (classifier == null) {
+            throw new IllegalStateException("PyTorch model not loaded - cannot analyze image");
+        }
+
+        long decodeStart = System.nanoTime();
+        Bitmap bitmap = source.load();
+        if (bitmap == null) {
+            throw new IOException("Failed to load image");
+        }
+
+        InferenceMetrics.getInstance().recordNanos(InferenceMetrics.Stage.DECODE, System.nanoTime() - decodeStart);
+        long decodeEnd = SystemClock.elapsedRealtime();
+        timing.decodeMs = decodeEnd - startTime;
+
+        return classify(classifier, bitmap, decodeEnd, timing);
+    }
+
+    /**
+     * Classify a bitmap decoded before it was queued (inference thread)
+     */
+    private PlantDiseaseClassifier.PredictionResult runBitmapPrediction(Bitmap bitmap, Timing timing)
+            throws Exception {
+        long startTime = SystemClock.elapsedRealtime();
+        timing.queueMs = startTime - timing.submitTime;
+
+        PlantDiseaseClassifier classifier = awaitModel();
+        if (classifier == null) {
+            BitmapPool.getInstance().put(bitmap);
+            throw new IllegalStateException("PyTorch model not loaded - cannot analyze image");
+        }
+
+        return classify(classifier, bitmap, startTime, timing);
+    }
+
+    /**
+     * Screen and classify a decoded bitmap, then return it to the pool (inference thread)
+     */
+    private PlantDiseaseClassifier.PredictionResult classify(PlantDiseaseClassifier classifier, Bitmap bitmap,
+                                                             long decodeEnd, Timing timing) {
+        try {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException();
+            }
+
+            PlantDiseaseClassifier.PredictionResult result = classifier.predict(bitmap, true);
+            long endTime = SystemClock.elapsedRealtime();
+            timing.inferenceMs = endTime - decodeEnd;
+            timing.totalMs = endTime - timing.submitTime;
+
+            if (result == null) {
+                throw new IllegalStateException("AI analysis failed - please try again");
+            }
+
+            Log.d(TAG, "Request complete: " + timing);
+            return result;
+        } finally {
+            BitmapPool.getInstance().put(bitmap);
+        }
+    }
+
+    /**
+     * Screen, tile, decode and classify a photo (inference thread)
+     * decodeMs covers the preview; tiles are decoded inside the forward pass, so they
+     * are part of inferenceMs.
+     */
+    private PlantDiseaseClassifier.PredictionResult runTiledPrediction(String imagePath, BitmapSource preview,
+                                                                      Timing timing) throws Exception {
+        long startTime = SystemClock.elapsedRealtime();
+        timing.queueMs = startTime - timing.submitTime;
+
+        PlantDiseaseClassifier classifier = awaitModel();
+        if (classifier == null) {
+            throw new IllegalStateException("PyTorch model not loaded - cannot analyze image");
+        }
+
+        long decodeStart = System.nanoTime();
+        Bitmap bitmap = preview.load();
+        if (bitmap == null) {
+            throw new IOException("Failed to load image");
+        }
+
+        InferenceMetrics.getInstance().recordNanos(InferenceMetrics.Stage.DECODE, System.nanoTime() - decodeStart);
+        long decodeEnd = SystemClock.elapsedRealtime();
+        timing.decodeMs = decodeEnd - startTime;
+
+        try {
+            PlantDiseaseClassifier.PredictionResult result = classifier.predictTiled(imagePath, bitmap);
+            if (result == null) {
+                throw new IllegalStateException("AI analysis failed - please try again");
+            }
+
+            long endTime = SystemClock.elapsedRealtime();
+            timing.inferenceMs = endTime - decodeEnd;
+            timing.totalMs = endTime - timing.submitTime;
+            Log.d(TAG, "Tiled request complete: " + timing);
+            return result;
+        } finally {
+            BitmapPool.getInstance().put(bitmap);
+        }
+    }
+
+    /**
+     * Decode every photo of a plant and classify them in one batch (inference thread)
+     */
+    private PlantDiseaseClassifier.PredictionResult runBatchPrediction(List<BitmapSource> sources, Timing timing)
+            throws Exception {
+        long startTime = SystemClock.elapsedRealtime();
+        timing.queueMs = startTime - timing.submitTime;
+
+        PlantDiseaseClassifier classifier = awaitModel();
+        if (classifier == null) {
+            throw new IllegalStateException("PyTorch model not loaded - cannot analyze image");
+        }
+
+        List<Bitmap> bitmaps = new ArrayList<>(sources.size());
+        try {
+            long decodeStart = System.nanoTime();
+            for (BitmapSource source : sources) {
+                Bitmap bitmap = source.load();
+                if (bitmap != null) {
+                    bitmaps.add(bitmap);
+                }
+            }
+            if (bitmaps.isEmpty()) {
+                throw new IOException("Failed to load images");
+            }
+            InferenceMetrics.getInstance().recordNanos(InferenceMetrics.Stage.DECODE, System.nanoTime() - decodeStart);
+            long decodeEnd = SystemClock.elapsedRealtime();
+            timing.decodeMs = decodeEnd - startTime;
+
+            PlantDiseaseClassifier.BatchPredictionResult result = classifier.predictBatch(bitmaps);
+            long endTime = SystemClock.elapsedRealtime();
+            timing.inferenceMs = endTime - decodeEnd;
+            timing.totalMs = endTime - timing.submitTime;
+
+            if (result == null) {
+                throw new IllegalStateException("AI analysis failed - please try again");
+            }
+
+            Log.d(TAG, "Batch request complete: " + result + ", " + timing);
+            return result;
+        } finally {
+            for (Bitmap bitmap : bitmaps) {
+                BitmapPool.getInstance().put(bitmap);
+            }
+        }
+    }
+
+    /**
+     * Classify a preprocessed tensor (inference thread)
+     */
+    private PlantDiseaseClassifier.PredictionResult runTensorPrediction(Tensor inputTensor, Timing timing)
+            throws Exception {
+        long startTime = SystemClock.elapsedRealtime();
+        timing.queueMs = startTime - timing.submitTime;
+
+        PlantDiseaseClassifier classifier = awaitModel();
+        if (classifier == null) {
+            throw new IllegalStateException("PyTorch model not loaded - cannot analyze image");
+        }
+
+        PlantDiseaseClassifier.PredictionResult result = classifier.predictPreprocessed(inputTensor);
+        long endTime = SystemClock.elapsedRealtime();
+        timing.inferenceMs = endTime - startTime;
+        timing.totalMs = endTime - timing.submitTime;
+
+        if (result == null) {
+            throw new IllegalStateException("AI analysis failed - please try again");
+        }
+        return result;
+    }
+
+    /**
+     * Unit of work executed by a task
+     */
+    private interface Work {
+        PlantDiseaseClassifier.PredictionResult run(Timing timing) throws Exception;
+    }
+
+    /**
+     * Produces the bitmap for a request, called on the inference thread
+     */
+    public interface BitmapSource {
+        Bitmap load() throws Exception;
+    }
+
+    /**
+     * Callback for request completion (inference thread)
+     */
+    public interface InferenceCallback {
+        void onResult(PlantDiseaseClassifier.PredictionResult result, Timing timing);
+        void onError(String error);
+
+        /**
+         * The image was screened out before inference - reported as an error unless overridden
+         */
+        default void onRejected(ImageRejectedException rejection) {
+            onError(rejection.getMessage());
+        }
+    }
+
+    /**
+     * Per-request timing breakdown, in milliseconds
+     */
+    public static class Timing {
+        public final long submitTime = SystemClock.elapsedRealtime();
+        public volatile long queueMs;
+        public volatile long decodeMs;
+        public volatile long inferenceMs;
+        public volatile long totalMs;
+
+        @Override
+        public String toString() {
+            return String.format("total %dms (queue %dms, decode %dms, inference %dms)",
+                    totalMs, queueMs, decodeMs, inferenceMs);
+        }
+    }
+}
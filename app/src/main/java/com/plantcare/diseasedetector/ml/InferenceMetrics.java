@@ -0,0 +1,142 @@
+package com.plantcare.diseasedetector.ml;
+
+import com.plantcare.diseasedetector.ml.core.ImageQuality;
+import com.plantcare.diseasedetector.ml.core.LatencyHistogram;
+import com.plantcare.diseasedetector.ml.core.LeafGate;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide latency histograms for every stage of a scan
+ * Stages record from whichever thread runs them; recording is lock-free.
+ * Covers the current process only - per-scan totals are persisted on ScanResult.
+ */
+public final class InferenceMetrics {
+
+    /**
+     * Measured pipeline stages
+     */
+    public enum Stage {
+        DECODE("Decode"),
+        PREPROCESS("Preprocess"),
+        FORWARD("Forward pass"),
+        POSTPROCESS("Postprocess"),
+        DB_INSERT("DB insert"),
+        TOTAL("Total");
+
+        public final String displayName;
+
+        Stage(String displayName) {
+            this.displayName = displayName;
+        }
+    }
+
+    private static final InferenceMetrics INSTANCE = new InferenceMetrics();
+
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private final AtomicLongArray screenings = new AtomicLongArray(LeafGate.Reason.values().length);
+    private final AtomicLongArray qualityRejections = new AtomicLongArray(ImageQuality.Issue.values().length);
+
+    private InferenceMetrics() {
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    public static InferenceMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Record a stage duration measured with System.nanoTime()
+     */
+    public void recordNanos(Stage stage, long nanos) {
+        histograms.get(stage).recordNanos(nanos);
+    }
+
+    /**
+     * Record a stage duration in milliseconds
+     */
+    public void recordMillis(Stage stage, long millis) {
+        histograms.get(stage).record(millis * 1000);
+    }
+
+    /**
+     * Count the outcome of one input screening
+     */
+    public void recordScreening(LeafGate.Reason reason) {
+        screenings.incrementAndGet(reason.ordinal());
+    }
+
+    public long getScreeningCount(LeafGate.Reason reason) {
+        return screenings.get(reason.ordinal());
+    }
+
+    /**
+     * Count a plant image rejected for blur or exposure
+     */
+    public void recordQualityRejection(ImageQuality.Issue issue) {
+        qualityRejections.incrementAndGet(issue.ordinal());
+    }
+
+    public long getQualityRejectionCount() {
+        return sum(qualityRejections);
+    }
+
+    /**
+     * Share of screened images rejected before inference, 0 when none were screened
+     */
+    public float getRejectionRate() {
+        long total = sum(screenings);
+        long rejected = total - screenings.get(LeafGate.Reason.ACCEPTED.ordinal()) + getQualityRejectionCount();
+        return total > 0 ? (float) rejected / total : 0f;
+    }
+
+    private static long sum(AtomicLongArray counts) {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms.get(stage);
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        for (int i = 0; i < screenings.length(); i++) {
+            screenings.set(i, 0);
+        }
+        for (int i = 0; i < qualityRejections.length(); i++) {
+            qualityRejections.set(i, 0);
+        }
+    }
+
+    /**
+     * One line per stage that has samples
+     */
+    public String getSummary() {
+        StringBuilder builder = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = histograms.get(stage);
+            if (histogram.getCount() == 0) continue;
+            if (builder.length() > 0) builder.append('\n');
+            builder.append(stage.displayName).append(": ").append(histogram.summary());
+        }
+
+        long screened = sum(screenings);
+        if (screened > 0) {
+            long notPlant = screened - screenings.get(LeafGate.Reason.ACCEPTED.ordinal());
+            if (builder.length() > 0) builder.append('\n');
+            builder.append(String.format("Rejected: %d not a plant, %d poor quality of %d (%.0f%%)",
+                    notPlant, getQualityRejectionCount(), screened, getRejectionRate() * 100));
+        }
+        return builder.length() > 0 ? builder.toString() : "No scans this session";
+    }
+}
@@ -0,0 +1,189 @@
+package com.plantcare.diseasedetector.ml;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.plantcare.diseasedetector.data.database.DiseaseInfoDao;
+import com.plantcare.diseasedetector.data.models.DiseaseInfo;
+import com.plantcare.diseasedetector.ml.core.ClassNames;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, index-addressed metadata for every model output class
+ * Built once when the model loads, so turning a prediction into display names,
+ * the healthy flag and the matching DiseaseInfo is a plain array lookup.
+ *
+ * Loaded from "<model>.labels.txt" next to the model asset - one class per line,
+ * optionally followed by tab-separated plant name, disease name and severity.
+ */
+public final class LabelTable {
+
+    private static final String TAG = "LabelTable";
+    private static final String SEVERITY_NONE = "None";
+
+    private final Label[] labels;
+    private final Map<String, Label> byClassName;
+    private final boolean[] healthyMask;
+
+    private LabelTable(Label[] labels) {
+        this.labels = labels;
+        this.byClassName = new HashMap<>(labels.length * 2);
+        this.healthyMask = new boolean[labels.length];
+        for (Label label : labels) {
+            byClassName.put(label.className, label);
+            healthyMask[label.index] = label.healthy;
+        }
+    }
+
+    /**
+     * Load the labels asset for a model, falling back to the built-in class list
+     */
+    public static LabelTable load(Context context, String labelsAssetName, String[] fallbackClasses) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                context.getAssets().open(labelsAssetName), StandardCharsets.UTF_8))) {
+            List<Label> parsed = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("#")) continue;
+                parsed.add(parseLine(parsed.size(), line));
+            }
+
+            if (!parsed.isEmpty()) {
+                Log.d(TAG, "Loaded " + parsed.size() + " labels from " + labelsAssetName);
+                return new LabelTable(parsed.toArray(new Label[0]));
+            }
+            Log.w(TAG, "Labels file is empty: " + labelsAssetName);
+        } catch (IOException e) {
+            Log.w(TAG, "Labels file not found, using built-in classes: " + labelsAssetName);
+        }
+
+        return fromClassNames(fallbackClasses);
+    }
+
+    /**
+     * Build a table by parsing plain "Plant___Disease" class names
+     */
+    public static LabelTable fromClassNames(String[] classNames) {
+        Label[] labels = new Label[classNames.length];
+        for (int i = 0; i < classNames.length; i++) {
+            labels[i] = parseLine(i, classNames[i]);
+        }
+        return new LabelTable(labels);
+    }
+
+    private static Label parseLine(int index, String line) {
+        String[] columns = line.split("\t");
+        String className = columns[0].trim();
+
+        String plantName = columns.length > 1 && !columns[1].isEmpty()
+                ? columns[1] : ClassNames.extractPlantName(className);
+        String diseaseName = columns.length > 2 && !columns[2].isEmpty()
+                ? columns[2] : ClassNames.extractDiseaseName(className);
+        boolean healthy = className.toLowerCase().contains("healthy");
+        String severity = columns.length > 3 && !columns[3].isEmpty()
+                ? columns[3] : (healthy ? SEVERITY_NONE : null);
+
+        return new Label(index, className, plantName, diseaseName, healthy, severity, -1);
+    }
+
+    /**
+     * Return a copy with each label linked to its DiseaseInfo row (background thread).
+     * Severity comes from the DiseaseInfo when the labels file does not set it.
+     */
+    public LabelTable resolveDiseaseInfo(DiseaseInfoDao diseaseInfoDao) {
+        Label[] resolved = new Label[labels.length];
+        int matched = 0;
+
+        for (int i = 0; i < labels.length; i++) {
+            Label label = labels[i];
+            DiseaseInfo info = null;
+            if (!label.healthy) {
+                String cleanedClass = label.className.replace("___", " ").replace("_", " ").trim();
+                info = diseaseInfoDao.getDiseaseInfoByPrediction(cleanedClass);
+                if (info == null) {
+                    info = diseaseInfoDao.getDiseaseInfoByName(label.diseaseName);
+                }
+            }
+
+            if (info != null) {
+                matched++;
+                String severity = label.severity != null ? label.severity : info.getSeverityLevel();
+                resolved[i] = new Label(label.index, label.className, label.plantName, label.diseaseName,
+                        label.healthy, severity, info.getId());
+            } else {
+                resolved[i] = label;
+            }
+        }
+
+        Log.d(TAG, "Resolved disease info for " + matched + "/" + labels.length + " labels");
+        return new LabelTable(resolved);
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    /**
+     * Label for a model output index, or null if out of range
+     */
+    public Label get(int index) {
+        return index >= 0 && index < labels.length ? labels[index] : null;
+    }
+
+    /**
+     * Label for a stored class name, or null if the model does not know it
+     */
+    public Label findByClassName(String className) {
+        return className != null ? byClassName.get(className) : null;
+    }
+
+    /**
+     * Healthy flag for every output index - treat as read-only
+     */
+    public boolean[] getHealthyMask() {
+        return healthyMask;
+    }
+
+    public List<Label> getLabels() {
+        List<Label> list = new ArrayList<>(labels.length);
+        Collections.addAll(list, labels);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Metadata for one output class
+     */
+    public static final class Label {
+        public final int index;
+        public final String className;
+        public final String plantName;
+        public final String diseaseName;
+        public final boolean healthy;
+        public final String severity;     // null when unknown
+        public final int diseaseInfoId;   // -1 when no DiseaseInfo matched
+
+        Label(int index, String className, String plantName, String diseaseName,
+              boolean healthy, String severity, int diseaseInfoId) {
+            this.index = index;
+            this.className = className;
+            this.plantName = plantName;
+            this.diseaseName = diseaseName;
+            this.healthy = healthy;
+            this.severity = severity;
+            this.diseaseInfoId = diseaseInfoId;
+        }
+
+        public boolean hasDiseaseInfo() {
+            return diseaseInfoId >= 0;
+        }
+    }
+}
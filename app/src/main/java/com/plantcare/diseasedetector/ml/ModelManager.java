@@ -0,0 +1,311 @@
+package com.plantcare.diseasedetector.ml;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.plantcare.diseasedetector.data.database.AppDatabase;
+import com.plantcare.diseasedetector.ui.settings.SettingsActivity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide holder for the PyTorch classifier
+ * Loads the model once on a background thread, warms it up and hands the ready
+ * instance to any screen. Unloads under memory pressure and reloads lazily.
+ *
+ * Owned by PlantDiseaseApplication.
+ */
+public class ModelManager {
+
+    private static final String TAG = "ModelManager";
+    private static final int WARMUP_PASSES = 2;
+    private static final float DEFAULT_CONFIDENCE_THRESHOLD = 0.7f;
+    private static final long MAX_AUGMENTATION_MS = 1500;
+
+    /**
+     * Model lifecycle state
+     */
+    public enum State {
+        UNLOADED,
+        LOADING,
+        READY,
+        FAILED
+    }
+
+    private final Context context;
+    private final ModelVariantSelector variantSelector;
+    private final ExecutorService loaderExecutor;
+    private final List<ModelCallback> pendingCallbacks = new ArrayList<>();
+
+    private PlantDiseaseClassifier classifier;
+    private PredictionCache predictionCache;
+    private LabelTable labelTable;
+    private State state = State.UNLOADED;
+    private boolean reloadPending;
+    private long lastLoadTimeMs;
+
+    public ModelManager(Context context) {
+        this.context = context.getApplicationContext();
+        this.variantSelector = new ModelVariantSelector(this.context);
+        this.loaderExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ModelLoader");
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Start loading the model in the background if it is not loaded yet
+     */
+    public void preload() {
+        getModel(null);
+    }
+
+    /**
+     * Get the ready model. Invoked immediately when already loaded, otherwise
+     * once loading finishes (on the loader thread).
+     */
+    public void getModel(ModelCallback callback) {
+        PlantDiseaseClassifier ready = null;
+
+        synchronized (this) {
+            if (state == State.READY && classifier != null && classifier.isModelLoaded()) {
+                ready = classifier;
+            } else {
+                if (callback != null) {
+                    pendingCallbacks.add(callback);
+                }
+                if (state != State.LOADING) {
+                    state = State.LOADING;
+                    loaderExecutor.execute(this::loadModel);
+                }
+            }
+        }
+
+        if (ready != null && callback != null) {
+            callback.onModelReady(ready);
+        }
+    }
+
+    /**
+     * Get the model only if it is already loaded, without triggering a load
+     */
+    public synchronized PlantDiseaseClassifier getModelIfReady() {
+        return state == State.READY ? classifier : null;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized boolean isReady() {
+        return state == State.READY;
+    }
+
+    /**
+     * Shared prediction cache, created once the model version is known
+     */
+    public synchronized PredictionCache getPredictionCache() {
+        return predictionCache;
+    }
+
+    /**
+     * Label metadata of the last loaded model (kept across unloads), or null
+     */
+    public synchronized LabelTable getLabelTable() {
+        return labelTable;
+    }
+
+    /**
+     * Variant of the loaded model, or null when none is loaded
+     */
+    public synchronized ModelVariant getActiveVariant() {
+        return classifier != null ? classifier.getVariant() : null;
+    }
+
+    public ModelVariantSelector getVariantSelector() {
+        return variantSelector;
+    }
+
+    /**
+     * Time spent on the last load + warm-up, in milliseconds
+     */
+    public synchronized long getLastLoadTimeMs() {
+        return lastLoadTimeMs;
+    }
+
+    /**
+     * Load and warm up the model (loader thread)
+     */
+    private void loadModel() {
+        long startTime = System.currentTimeMillis();
+        ModelVariant variant = variantSelector.select();
+        PlantDiseaseClassifier loaded = new PlantDiseaseClassifier(context, variant);
+        boolean success = false;
+
+        try {
+            success = loaded.loadModel();
+            if (!success && variant != ModelVariant.FP32) {
+                Log.w(TAG, "Variant " + variant.key + " failed to load, falling back to full precision");
+                loaded = new PlantDiseaseClassifier(context, ModelVariant.FP32);
+                success = loaded.loadModel();
+            }
+            if (success) {
+                // First forward passes initialize native kernels and allocators
+                loaded.warmUp(WARMUP_PASSES);
+                resolveLabels(loaded);
+                applyAugmentationPolicy(loaded);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading model", e);
+            success = false;
+        }
+
+        long loadTime = System.currentTimeMillis() - startTime;
+        List<ModelCallback> callbacks;
+
+        synchronized (this) {
+            if (success) {
+                // The cache survives unload/reload so earlier results stay available,
+                // but results of a different variant must not be served
+                if (predictionCache == null || !predictionCache.getModelVersion().equals(loaded.getModelVersion())) {
+                    if (predictionCache != null) {
+                        predictionCache.close();
+                    }
+                    predictionCache = new PredictionCache(context, loaded.getModelVersion());
+                }
+                loaded.setPredictionCache(predictionCache);
+                labelTable = loaded.getLabelTable();
+                classifier = loaded;
+                state = State.READY;
+                lastLoadTimeMs = loadTime;
+            } else {
+                classifier = null;
+                state = State.FAILED;
+            }
+            callbacks = new ArrayList<>(pendingCallbacks);
+            pendingCallbacks.clear();
+        }
+
+        Log.i(TAG, (success ? "Model ready" : "Model failed to load") + " in " + loadTime + "ms");
+
+        for (ModelCallback callback : callbacks) {
+            try {
+                if (success) {
+                    callback.onModelReady(loaded);
+                } else {
+                    callback.onModelError("Failed to load PyTorch model - check model file");
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Error in model callback", e);
+            }
+        }
+
+        boolean reloadNow;
+        synchronized (this) {
+            reloadNow = reloadPending;
+            reloadPending = false;
+        }
+        if (reloadNow) {
+            reload();
+        }
+    }
+
+    /**
+     * Link every class to its DiseaseInfo row once, so results need no name lookups
+     */
+    private void resolveLabels(PlantDiseaseClassifier loaded) {
+        try {
+            LabelTable resolved = loaded.getLabelTable()
+                    .resolveDiseaseInfo(AppDatabase.getInstance(context).diseaseInfoDao());
+            loaded.setLabelTable(resolved);
+        } catch (Exception e) {
+            Log.w(TAG, "Error resolving disease info for labels", e);
+        }
+    }
+
+    /**
+     * Re-read accuracy mode and the confidence threshold after they changed in Settings
+     */
+    public void refreshAugmentationPolicy() {
+        PlantDiseaseClassifier ready = getModelIfReady();
+        if (ready != null) {
+            applyAugmentationPolicy(ready);
+        }
+    }
+
+    /**
+     * With accuracy mode on, refine results below the user's confidence threshold with
+     * test-time augmentation; otherwise every prediction is a single forward pass
+     */
+    private void applyAugmentationPolicy(PlantDiseaseClassifier loaded) {
+        SharedPreferences preferences = context.getSharedPreferences(SettingsActivity.PREFS_NAME, Context.MODE_PRIVATE);
+        float threshold = preferences.getFloat(SettingsActivity.PREF_AI_CONFIDENCE_THRESHOLD, DEFAULT_CONFIDENCE_THRESHOLD);
+        boolean accuracyMode = preferences.getBoolean(SettingsActivity.PREF_ACCURACY_MODE, false);
+        loaded.setPredictionMode(accuracyMode
+                ? PlantDiseaseClassifier.PredictionMode.AUTO
+                : PlantDiseaseClassifier.PredictionMode.STANDARD);
+        loaded.setAugmentationPolicy(threshold, MAX_AUGMENTATION_MS);
+    }
+
+    /**
+     * Release the model under memory pressure; it is reloaded on next use
+     */
+    public void onTrimMemory(int level) {
+        PredictionCache cache = getPredictionCache();
+        if (cache != null && level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            cache.clearMemory();
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            unload();
+        }
+    }
+
+    /**
+     * Switch to the variant currently selected in Settings, loading it in the background.
+     * While a load is in progress, the switch happens once that load finishes.
+     */
+    public void reload() {
+        synchronized (this) {
+            if (state == State.LOADING) {
+                reloadPending = true;
+                return;
+            }
+        }
+        unload();
+        preload();
+    }
+
+    /**
+     * Unload the model now
+     */
+    public void unload() {
+        PlantDiseaseClassifier toRelease;
+
+        synchronized (this) {
+            if (state != State.READY) return;
+            toRelease = classifier;
+            classifier = null;
+            state = State.UNLOADED;
+        }
+
+        if (toRelease != null) {
+            toRelease.release();
+            Log.i(TAG, "Model unloaded to free memory");
+        }
+    }
+
+    /**
+     * Callback for model availability
+     */
+    public interface ModelCallback {
+        void onModelReady(PlantDiseaseClassifier classifier);
+        void onModelError(String error);
+    }
+}
@@ -0,0 +1,231 @@
+package com.plantcare.diseasedetector.ml;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import androidx.core.content.pm.PackageInfoCompat;
+
+import org.pytorch.LiteModuleLoader;
+import org.pytorch.Module;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Loads PyTorch Lite models shipped in assets
+ * Prefers loading straight from the APK: assets stored uncompressed (see noCompress
+ * in build.gradle) are mapped by the native loader without any copy to disk.
+ * Otherwise the asset is extracted once to filesDir/models with a large buffer,
+ * written to a temp file, fsynced and atomically renamed, and stamped with the
+ * app version, size and CRC32 so truncated copies and APK updates are detected.
+ * The CRC of an existing copy is checked the first time it is used in a process,
+ * which also catches corruption that keeps the file size.
+ */
+public class ModelStore {
+
+    private static final String TAG = "ModelStore";
+    private static final String MODEL_DIRECTORY = "models";
+    private static final int COPY_BUFFER_SIZE = 256 * 1024;
+
+    // Extracted copies whose CRC was checked in this process
+    private static final Set<String> verifiedFiles = Collections.synchronizedSet(new HashSet<String>());
+
+    private final Context context;
+    private final String versionStamp;
+    private String lastLoadSource = "none";
+
+    public ModelStore(Context context) {
+        this.context = context.getApplicationContext();
+        this.versionStamp = buildVersionStamp(this.context);
+    }
+
+    /**
+     * Load a model asset, directly from the APK when possible
+     */
+    public Module load(String assetName) throws IOException {
+        if (isUncompressedAsset(assetName)) {
+            try {
+                Module module = LiteModuleLoader.loadModuleFromAsset(context.getAssets(), assetName);
+                lastLoadSource = "asset";
+                deleteExtracted(assetName); // No longer needed
+                Log.d(TAG, "Loaded model directly from APK asset: " + assetName);
+                return module;
+            } catch (Exception e) {
+                Log.w(TAG, "Direct asset load failed, extracting instead", e);
+            }
+        }
+
+        File modelFile = getExtractedFile(assetName);
+        try {
+            Module module = LiteModuleLoader.load(modelFile.getAbsolutePath());
+            lastLoadSource = "file";
+            return module;
+        } catch (Exception e) {
+            // The stamp matched but the file is unusable - extract again once
+            Log.w(TAG, "Extracted model failed to load, re-extracting", e);
+            deleteExtracted(assetName);
+            modelFile = getExtractedFile(assetName);
+            Module module = LiteModuleLoader.load(modelFile.getAbsolutePath());
+            lastLoadSource = "file";
+            return module;
+        }
+    }
+
+    /**
+     * App version stamp - changes whenever a new APK (and so a new model) is installed
+     */
+    public String getVersionStamp() {
+        return versionStamp;
+    }
+
+    /**
+     * Where the last model came from: "asset", "file" or "none"
+     */
+    public String getLastLoadSource() {
+        return lastLoadSource;
+    }
+
+    /**
+     * Assets that AAPT stored uncompressed can be opened as a file descriptor
+     */
+    private boolean isUncompressedAsset(String assetName) {
+        try (AssetFileDescriptor fd = context.getAssets().openFd(assetName)) {
+            return fd.getLength() > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Return a verified extracted copy, extracting it if missing or stale
+     */
+    private File getExtractedFile(String assetName) throws IOException {
+        File directory = new File(context.getFilesDir(), MODEL_DIRECTORY);
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Failed to create model directory");
+        }
+
+        File modelFile = new File(directory, assetName);
+        File stampFile = new File(directory, assetName + ".stamp");
+
+        String stamp = readStamp(stampFile);
+        if (stamp != null && modelFile.exists() && stamp.startsWith(versionStamp + ":" + modelFile.length() + ":")) {
+            if (verifiedFiles.contains(modelFile.getAbsolutePath()) || crcMatches(modelFile, stamp)) {
+                verifiedFiles.add(modelFile.getAbsolutePath());
+                Log.d(TAG, "Using extracted model: " + modelFile.getAbsolutePath());
+                return modelFile;
+            }
+            Log.w(TAG, "Extracted model failed its CRC check, extracting again");
+        }
+        verifiedFiles.remove(modelFile.getAbsolutePath());
+
+        long startTime = System.currentTimeMillis();
+        File tempFile = new File(directory, assetName + ".tmp");
+        CRC32 crc = new CRC32();
+        long totalBytes = 0;
+
+        try (InputStream is = context.getAssets().open(assetName);
+             FileOutputStream os = new FileOutputStream(tempFile)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                os.write(buffer, 0, read);
+                crc.update(buffer, 0, read);
+                totalBytes += read;
+            }
+            os.flush();
+            os.getFD().sync();
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        if (!tempFile.renameTo(modelFile)) {
+            tempFile.delete();
+            throw new IOException("Failed to move extracted model into place");
+        }
+
+        writeStamp(directory, stampFile, versionStamp + ":" + totalBytes + ":" + Long.toHexString(crc.getValue()));
+        verifiedFiles.add(modelFile.getAbsolutePath()); // CRC computed from the bytes just written
+
+        Log.d(TAG, "Model extracted to: " + modelFile.getAbsolutePath() + " (" + totalBytes + " bytes, "
+                + (System.currentTimeMillis() - startTime) + "ms)");
+        return modelFile;
+    }
+
+    /**
+     * Check an extracted model against the CRC32 recorded in its stamp when it was written
+     */
+    private static boolean crcMatches(File modelFile, String stamp) {
+        long startTime = System.currentTimeMillis();
+        CRC32 crc = new CRC32();
+        try (InputStream is = new FileInputStream(modelFile)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Error verifying extracted model", e);
+            return false;
+        }
+
+        Log.d(TAG, "Model CRC checked in " + (System.currentTimeMillis() - startTime) + "ms");
+        return stamp.endsWith(":" + Long.toHexString(crc.getValue()));
+    }
+
+    private void deleteExtracted(String assetName) {
+        File directory = new File(context.getFilesDir(), MODEL_DIRECTORY);
+        verifiedFiles.remove(new File(directory, assetName).getAbsolutePath());
+        new File(directory, assetName).delete();
+        new File(directory, assetName + ".stamp").delete();
+
+        // Copy made by earlier app versions
+        new File(context.getFilesDir(), assetName).delete();
+    }
+
+    private static String readStamp(File stampFile) {
+        if (!stampFile.exists()) return null;
+        try (BufferedReader reader = new BufferedReader(new FileReader(stampFile))) {
+            return reader.readLine();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write the stamp atomically - a half-written stamp must never validate a model
+     */
+    private static void writeStamp(File directory, File stampFile, String stamp) throws IOException {
+        File tempFile = new File(directory, stampFile.getName() + ".tmp");
+        try (FileOutputStream os = new FileOutputStream(tempFile)) {
+            os.write(stamp.getBytes("UTF-8"));
+            os.getFD().sync();
+        }
+        if (!tempFile.renameTo(stampFile)) {
+            tempFile.delete();
+            throw new IOException("Failed to write model stamp");
+        }
+    }
+
+    private static String buildVersionStamp(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            return PackageInfoCompat.getLongVersionCode(info) + "-" + info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "unknown";
+        }
+    }
+}
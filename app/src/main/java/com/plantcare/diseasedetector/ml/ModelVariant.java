@@ -0,0 +1,49 @@
+package com.plantcare.diseasedetector.ml;
+
+import android.content.Context;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Model builds shipped side by side in assets
+ * All variants share the same classes and labels file; they differ only in
+ * weight precision and so in size, speed and accuracy.
+ */
+public enum ModelVariant {
+    FP32("fp32", "Full precision", "plant_disease_model.ptl"),
+    INT8("int8", "Quantized (int8)", "plant_disease_model_int8.ptl");
+
+    public final String key;
+    public final String displayName;
+    public final String assetName;
+
+    ModelVariant(String key, String displayName, String assetName) {
+        this.key = key;
+        this.displayName = displayName;
+        this.assetName = assetName;
+    }
+
+    /**
+     * Whether this variant's model file is present in the APK
+     */
+    public boolean isBundled(Context context) {
+        try (InputStream ignored = context.getAssets().open(assetName)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Variant for a preference key, or null for "auto" and unknown keys
+     */
+    public static ModelVariant fromKey(String key) {
+        for (ModelVariant variant : values()) {
+            if (variant.key.equals(key)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+}
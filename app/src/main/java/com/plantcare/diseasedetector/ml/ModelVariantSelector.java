@@ -0,0 +1,96 @@
+package com.plantcare.diseasedetector.ml;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.plantcare.diseasedetector.ui.settings.SettingsActivity;
+
+/**
+ * Picks which model variant to load
+ * Honours the user's choice from Settings; in "auto" mode low-end devices
+ * (low-RAM flag, under 3GB of memory or at most 4 cores) get the quantized
+ * model and everything else gets full precision. Variants missing from the
+ * APK are never selected.
+ */
+public class ModelVariantSelector {
+
+    private static final String TAG = "ModelVariantSelector";
+
+    public static final String AUTO = "auto";
+    public static final String PREF_VARIANT_REPORT = "model_variant_report";
+
+    private static final long LOW_END_TOTAL_MEMORY = 3L * 1024 * 1024 * 1024;
+    private static final int LOW_END_CORE_COUNT = 4;
+
+    private final Context context;
+
+    public ModelVariantSelector(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Variant to load right now
+     */
+    public ModelVariant select() {
+        String choice = getPreference();
+        ModelVariant variant = ModelVariant.fromKey(choice);
+        if (variant == null) {
+            variant = isLowEndDevice() ? ModelVariant.INT8 : ModelVariant.FP32;
+        }
+
+        if (variant != ModelVariant.FP32 && !variant.isBundled(context)) {
+            Log.w(TAG, variant.assetName + " not bundled, using full precision model");
+            variant = ModelVariant.FP32;
+        }
+
+        Log.d(TAG, "Selected model variant " + variant.key + " (setting: " + choice + ")");
+        return variant;
+    }
+
+    /**
+     * User setting: a variant key or AUTO
+     */
+    public String getPreference() {
+        return getPreferences().getString(SettingsActivity.PREF_MODEL_VARIANT, AUTO);
+    }
+
+    public void setPreference(String choice) {
+        getPreferences().edit().putString(SettingsActivity.PREF_MODEL_VARIANT, choice).apply();
+    }
+
+    /**
+     * Last variant comparison report, or null if none was run
+     */
+    public String getLastReport() {
+        return getPreferences().getString(PREF_VARIANT_REPORT, null);
+    }
+
+    public void saveReport(String report) {
+        getPreferences().edit().putString(PREF_VARIANT_REPORT, report).apply();
+    }
+
+    /**
+     * Low-RAM flag, little total memory or few cores
+     */
+    public boolean isLowEndDevice() {
+        try {
+            ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+            if (activityManager != null) {
+                if (activityManager.isLowRamDevice()) return true;
+
+                ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+                activityManager.getMemoryInfo(memoryInfo);
+                if (memoryInfo.totalMem > 0 && memoryInfo.totalMem < LOW_END_TOTAL_MEMORY) return true;
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Error reading device memory info", e);
+        }
+        return Runtime.getRuntime().availableProcessors() <= LOW_END_CORE_COUNT;
+    }
+
+    private SharedPreferences getPreferences() {
+        return context.getSharedPreferences(SettingsActivity.PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,58 @@
+package com.plantcare.diseasedetector.ml;
+
+import java.util.Arrays;
+
+/**
+ * 64-bit difference hash (dHash) over square ARGB pixel buffers
+ * Downsamples luminance to a 9x8 grid and records whether each cell is brighter
+ * than its right-hand neighbour. Re-imports and near-identical frames land on the
+ * same or a very close hash.
+ *
+ * Not thread-safe - keeps a reusable scratch grid.
+ */
+public class PerceptualHash {
+
+    private static final int GRID_WIDTH = 9;
+    private static final int GRID_HEIGHT = 8;
+
+    private final int[] cellSums = new int[GRID_WIDTH * GRID_HEIGHT];
+    private final int[] cellCounts = new int[GRID_WIDTH * GRID_HEIGHT];
+
+    /**
+     * Compute the dHash of a size x size ARGB buffer
+     */
+    public long compute(int[] pixels, int size) {
+        Arrays.fill(cellSums, 0);
+        Arrays.fill(cellCounts, 0);
+
+        for (int y = 0; y < size; y++) {
+            int rowBase = (y * GRID_HEIGHT / size) * GRID_WIDTH;
+            int offset = y * size;
+            for (int x = 0; x < size; x++) {
+                int pixel = pixels[offset + x];
+                int r = (pixel >> 16) & 0xFF;
+                int g = (pixel >> 8) & 0xFF;
+                int b = pixel & 0xFF;
+                int cell = rowBase + x * GRID_WIDTH / size;
+                cellSums[cell] += (r * 77 + g * 150 + b * 29) >> 8;
+                cellCounts[cell]++;
+            }
+        }
+
+        // Compare cell averages via cross-multiplication (cells differ by a pixel column or so)
+        long hash = 0;
+        int bit = 0;
+        for (int row = 0; row < GRID_HEIGHT; row++) {
+            int base = row * GRID_WIDTH;
+            for (int col = 0; col < GRID_WIDTH - 1; col++) {
+                long left = (long) cellSums[base + col] * cellCounts[base + col + 1];
+                long right = (long) cellSums[base + col + 1] * cellCounts[base + col];
+                if (left > right) {
+                    hash |= 1L << bit;
+                }
+                bit++;
+            }
+        }
+        return hash;
+    }
+}
@@ -3,14 +3,24 @@ package com.plantcare.diseasedetector.ml;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.util.Log;
+
+import com.plantcare.diseasedetector.ml.core.Augmentation;
+import com.plantcare.diseasedetector.ml.core.FusedPostprocessor;
+import com.plantcare.diseasedetector.ml.core.ImageQuality;
+import com.plantcare.diseasedetector.ml.core.LeafGate;
+import com.plantcare.diseasedetector.ml.core.LesionHeatmap;
+import com.plantcare.diseasedetector.ml.core.TensorMath;
+import com.plantcare.diseasedetector.ml.core.TileAggregator;
+import com.plantcare.diseasedetector.ml.core.TileGrid;
+import com.plantcare.diseasedetector.ml.core.TopKSelector;
+
 import org.pytorch.IValue;
-import org.pytorch.LiteModuleLoader;
 import org.pytorch.Module;
 import org.pytorch.Tensor;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Real PyTorch Plant Disease Classifier
@@ -20,14 +30,34 @@ public class PlantDiseaseClassifier {
     private static final String TAG = "PlantClassifier";
     
     // Model configuration
-    private static final int INPUT_SIZE = 224;
-    private static final String MODEL_NAME = "plant_disease_model.ptl";
+    private static final String LABELS_NAME = "plant_disease_model.labels.txt"; // Shared by all model variants
+    private static final int TOP_K = 5;
+    private static final int MAX_BATCH_SIZE = 16; // Bounds the batch input buffer to ~9.6MB
     
-    // ImageNet normalization (CRITICAL for correct predictions)
-    private static final float[] MEAN = {0.485f, 0.456f, 0.406f};
-    private static final float[] STD = {0.229f, 0.224f, 0.225f};
+    // Test-time augmentation
+    private static final Augmentation[] TTA_AUGMENTATIONS = {
+        Augmentation.HORIZONTAL_FLIP,
+        Augmentation.VERTICAL_FLIP,
+        Augmentation.CENTER_CROP,
+        Augmentation.ZOOM_OUT
+    };
+    private static final float DEFAULT_TTA_THRESHOLD = 0.7f;
     
-    // Plant classes (38 classes) - UPDATE this array to match your model's output
+    // Tiled inference - the tile budget bounds the batch buffer to ~9.6MB plus one decoded tile
+    private static final int MAX_TILES = MAX_BATCH_SIZE;
+    private static final float TILE_OVERLAP = 0.25f;
+    private static final long DEFAULT_TTA_MAX_EXTRA_MS = 1500;
+    
+    /**
+     * How single-image predictions trade latency for accuracy
+     */
+    public enum PredictionMode {
+        STANDARD,   // One forward pass
+        ACCURATE,   // Always average over test-time augmentations
+        AUTO        // Augment only when the single pass is below the confidence threshold
+    }
+    
+    // Built-in plant classes (38 classes), used when the labels file is missing
     private static final String[] CLASSES = {
         "Apple___Apple_scab",
         "Apple___Black_rot", 
@@ -71,9 +101,41 @@ public class PlantDiseaseClassifier {
     
     private Module model;
     private Context context;
+    private final ModelVariant variant;
+    private ModelStore modelStore;
+    private ImagePreprocessor preprocessor;
+    private FloatBuffer batchBuffer;
+    private int batchBufferSize;
+    private float[][] tileRows;
+    private PredictionCache predictionCache;
+    private final PerceptualHash perceptualHash = new PerceptualHash();
+    private final FusedPostprocessor postprocessor = new FusedPostprocessor(TOP_K);
+    private final LeafGate leafGate = new LeafGate();
+    private final ImageQuality imageQuality = new ImageQuality();
+    private volatile LabelTable labels = LabelTable.fromClassNames(CLASSES);
+    
+    // Test-time augmentation state (pooled, sized for the last augmentation count)
+    private PredictionMode predictionMode = PredictionMode.STANDARD;
+    private float ttaConfidenceThreshold = DEFAULT_TTA_THRESHOLD;
+    private long ttaMaxExtraMs = DEFAULT_TTA_MAX_EXTRA_MS;
+    private int[] ttaSource;
+    private int[] ttaPixels;
+    private float[] ttaChw;
+    private float[] ttaProbabilities;
+    private FloatBuffer ttaBuffer;
+    private Tensor ttaTensor;
+    private int ttaBufferCount;
+    
+    // Labels of the most recently loaded model, for static class name lookups
+    private static volatile LabelTable activeLabels;
     
     public PlantDiseaseClassifier(Context context) {
+        this(context, ModelVariant.FP32);
+    }
+    
+    public PlantDiseaseClassifier(Context context, ModelVariant variant) {
         this.context = context;
+        this.variant = variant;
     }
     
     /**
@@ -83,23 +145,23 @@ public class PlantDiseaseClassifier {
         try {
             Log.d(TAG, "Loading PyTorch model from assets...");
             
-            // Copy model from assets to internal storage
-            File modelFile = assetFilePath(MODEL_NAME);
-            if (modelFile == null || !modelFile.exists()) {
-                Log.e(TAG, "Model file not found or failed to copy");
-                return false;
-            }
+            // Load the PyTorch Lite model - straight from the APK when stored uncompressed
+            modelStore = new ModelStore(context);
+            model = modelStore.load(variant.assetName);
+            Log.d(TAG, "Model " + variant.key + " loaded from " + modelStore.getLastLoadSource());
             
-            Log.d(TAG, "Model file size: " + modelFile.length() + " bytes");
+            // Pooled input buffers, reused by every prediction
+            preprocessor = new ImagePreprocessor();
             
-            // Load the PyTorch Lite model
-            model = LiteModuleLoader.load(modelFile.getAbsolutePath());
+            // Per-class metadata, parsed once instead of on every prediction
+            labels = LabelTable.load(context, LABELS_NAME, CLASSES);
+            activeLabels = labels;
             
             // PyTorch Mobile Lite models are already in evaluation mode by default
             // model.eval() is not available in PyTorch Mobile - models are pre-optimized
             
             Log.i(TAG, "✅ PyTorch model loaded successfully");
-            Log.i(TAG, "Model classes: " + CLASSES.length);
+            Log.i(TAG, "Model classes: " + labels.size());
             
             return true;
             
@@ -109,10 +171,47 @@ public class PlantDiseaseClassifier {
         }
     }
     
+    /**
+     * Run dummy forward passes so native kernels are initialized before the first real scan
+     */
+    public synchronized void warmUp(int passes) {
+        if (model == null) return;
+
+        long startTime = System.currentTimeMillis();
+        Tensor inputTensor = preprocessor.getInputTensor();
+        for (int i = 0; i < passes; i++) {
+            model.forward(IValue.from(inputTensor));
+        }
+        Log.d(TAG, "Model warm-up (" + passes + " passes): " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
     /**
      * Predict plant disease from bitmap using PyTorch model
      */
     public PredictionResult predict(Bitmap bitmap) {
+        return predict(bitmap, false);
+    }
+    
+    /**
+     * Predict plant disease, optionally screening the image first
+     *
+     * @param screenInput reject images without foliage, or too blurry or badly exposed
+     *                    to diagnose, before the forward pass; the quality is attached to the result
+     * @throws ImageRejectedException if screening rejects the image
+     */
+    public PredictionResult predict(Bitmap bitmap, boolean screenInput) {
+        return predict(bitmap, screenInput, false);
+    }
+    
+    /**
+     * One uncached forward pass whatever the prediction mode, so every call costs
+     * the same - for benchmarks, which feed the same images over and over
+     */
+    synchronized PredictionResult predictSinglePass(Bitmap bitmap) {
+        return predict(bitmap, false, true);
+    }
+    
+    private synchronized PredictionResult predict(Bitmap bitmap, boolean screenInput, boolean singlePass) {
         if (model == null) {
             Log.e(TAG, "PyTorch model not loaded");
             return null;
@@ -122,46 +221,95 @@ public class PlantDiseaseClassifier {
             Log.d(TAG, "🔍 Starting PyTorch prediction...");
             long startTime = System.currentTimeMillis();
             
-            // Preprocess image
-            Tensor inputTensor = preprocessImage(bitmap);
-            Log.d(TAG, "Input tensor shape: " + java.util.Arrays.toString(inputTensor.shape()));
+            InferenceMetrics metrics = InferenceMetrics.getInstance();
+            
+            // Scale to model input size
+            long preprocessStart = System.nanoTime();
+            int[] pixels = preprocessor.loadPixels(bitmap);
+            
+            // Soil, hands and walls: reject before paying for a forward pass
+            if (screenInput) {
+                screen(pixels);
+            }
+            long preprocessNanos = System.nanoTime() - preprocessStart;
+            
+            // Skip inference for images we have already seen
+            PredictionCache cache = singlePass ? null : predictionCache;
+            String cacheVariant = cacheVariant();
+            long imageHash = 0;
+            if (cache != null) {
+                imageHash = perceptualHash.compute(pixels, ImagePreprocessor.INPUT_SIZE);
+                PredictionCache.Entry cached = cache.get(imageHash, cacheVariant);
+                if (cached != null) {
+                    PredictionResult result = createResult(cached.topIndices, cached.topConfidences);
+                    if (result != null) {
+                        if (screenInput) {
+                            result.setQuality(imageQuality.getScore(), imageQuality.getIssue());
+                        }
+                        Log.i(TAG, String.format("🎯 Cached Prediction: %s (%.1f%%) - %dms", 
+                                result.className, result.confidence * 100, System.currentTimeMillis() - startTime));
+                        return result;
+                    }
+                }
+            }
+            
+            // Normalize into the input tensor
+            long normalizeStart = System.nanoTime();
+            Tensor inputTensor = preprocessor.fillInputTensor();
+            metrics.recordNanos(InferenceMetrics.Stage.PREPROCESS, preprocessNanos + System.nanoTime() - normalizeStart);
             
             // Run inference
+            long inferenceStart = System.currentTimeMillis();
+            long forwardStart = System.nanoTime();
             IValue output = model.forward(IValue.from(inputTensor));
             Tensor outputTensor = output.toTensor();
             float[] rawScores = outputTensor.getDataAsFloatArray();
+            long inferenceTime = System.currentTimeMillis() - inferenceStart;
+            long forwardNanos = System.nanoTime() - forwardStart;
             
             Log.d(TAG, "Raw scores length: " + rawScores.length);
             
-            // Apply softmax to get probabilities
-            float[] probabilities = softmax(rawScores);
+            // Softmax, top-K and uncertainty in one pass
+            long postprocessStart = System.nanoTime();
+            postprocessor.process(rawScores, 0, rawScores.length);
             
-            // Find best prediction
-            int bestIndex = argmax(probabilities);
-            float confidence = probabilities[bestIndex];
+            // Uncertain (or accuracy mode): average over augmented views - counted as forward time
+            if (!singlePass && shouldAugment(postprocessor.getTop1())) {
+                long augmentStart = System.nanoTime();
+                float[] averaged = averageAugmented(pixels, postprocessor.getProbabilities(), inferenceTime);
+                postprocessor.processProbabilities(averaged, averaged.length);
+                inferenceTime = System.currentTimeMillis() - inferenceStart;
+                long augmentNanos = System.nanoTime() - augmentStart;
+                forwardNanos += augmentNanos;
+                postprocessStart += augmentNanos;
+            }
+            metrics.recordNanos(InferenceMetrics.Stage.FORWARD, forwardNanos);
             
-            // Validate prediction
-            if (bestIndex < 0 || bestIndex >= CLASSES.length) {
-                Log.e(TAG, "Invalid prediction index: " + bestIndex);
+            PredictionResult result = createResult(postprocessor);
+            if (result == null) {
                 return null;
             }
+            if (screenInput) {
+                result.setQuality(imageQuality.getScore(), imageQuality.getIssue());
+            }
             
-            // Create result
-            String className = CLASSES[bestIndex];
-            String plantName = extractPlantName(className);
-            String diseaseName = extractDiseaseName(className);
-            boolean isHealthy = className.toLowerCase().contains("healthy");
+            if (cache != null) {
+                cache.put(imageHash, cacheVariant, result.topIndices, result.topConfidences, inferenceTime);
+            }
+            metrics.recordNanos(InferenceMetrics.Stage.POSTPROCESS, System.nanoTime() - postprocessStart);
             
             long processingTime = System.currentTimeMillis() - startTime;
             
             Log.i(TAG, String.format("🎯 PyTorch Prediction: %s (%.1f%%) - %dms", 
-                    className, confidence * 100, processingTime));
+                    result.className, result.confidence * 100, processingTime));
             
             // Log top 3 predictions for debugging
-            logTopPredictions(probabilities, 3);
+            logTopPredictions(result.topIndices, result.topConfidences, 3);
             
-            return new PredictionResult(className, plantName, diseaseName, confidence, isHealthy);
+            return result;
             
+        } catch (ImageRejectedException e) {
+            throw e;
         } catch (Exception e) {
             Log.e(TAG, "❌ PyTorch prediction error", e);
             return null;
@@ -169,177 +317,531 @@ public class PlantDiseaseClassifier {
     }
     
     /**
-     * Preprocess image for PyTorch model input
+     * Reject model-input pixels without foliage, or too blurry or badly exposed to diagnose.
+     * The quality of accepted input is left in imageQuality.
+     *
+     * @throws ImageRejectedException if the input is rejected
      */
-    private Tensor preprocessImage(Bitmap bitmap) {
-        // Resize to model input size
-        Bitmap resized = Bitmap.createScaledBitmap(bitmap, INPUT_SIZE, INPUT_SIZE, true);
+    private void screen(int[] pixels) {
+        InferenceMetrics metrics = InferenceMetrics.getInstance();
+        LeafGate.Reason reason = leafGate.check(pixels, ImagePreprocessor.PLANE_SIZE);
+        metrics.recordScreening(reason);
+        if (reason != LeafGate.Reason.ACCEPTED) {
+            Log.i(TAG, String.format("Input rejected (%s): plant ratio %.3f, luma std dev %.1f",
+                    reason, leafGate.getPlantRatio(), leafGate.getLumaStdDev()));
+            throw new ImageRejectedException(reason);
+        }
         
-        // Convert to float array with ImageNet normalization
-        float[] floatArray = new float[3 * INPUT_SIZE * INPUT_SIZE];
-        int[] pixels = new int[INPUT_SIZE * INPUT_SIZE];
-        resized.getPixels(pixels, 0, INPUT_SIZE, 0, 0, INPUT_SIZE, INPUT_SIZE);
+        // Measured on the model input - the resolution at which blur hurts the diagnosis
+        imageQuality.analyzeArgb(pixels, ImagePreprocessor.INPUT_SIZE, ImagePreprocessor.INPUT_SIZE);
+        if (imageQuality.isUnusable()) {
+            Log.i(TAG, String.format("Input rejected (%s): sharpness %.0f, clipped %.2f/%.2f",
+                    imageQuality.getIssue(), imageQuality.getSharpness(),
+                    imageQuality.getHighlightClip(), imageQuality.getShadowClip()));
+            metrics.recordQualityRejection(imageQuality.getIssue());
+            throw new ImageRejectedException(imageQuality.getIssue());
+        }
+    }
+    
+    /**
+     * Cache key part for the current mode - AUTO results depend on the threshold too
+     */
+    private String cacheVariant() {
+        if (predictionMode == PredictionMode.AUTO) {
+            return predictionMode.name() + "@" + Math.round(ttaConfidenceThreshold * 100);
+        }
+        return predictionMode.name();
+    }
+    
+    /**
+     * Whether a single-pass result should be refined with test-time augmentation
+     */
+    private boolean shouldAugment(float topConfidence) {
+        switch (predictionMode) {
+            case ACCURATE:
+                return true;
+            case AUTO:
+                return topConfidence < ttaConfidenceThreshold;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Run augmented views of the current input in one batched forward pass and
+     * average their probabilities with the original pass.
+     * The number of views is capped so the extra work stays within ttaMaxExtraMs,
+     * estimated from the duration of the single pass.
+     */
+    private float[] averageAugmented(int[] pixels, float[] probabilities, long singlePassMs) {
+        long startTime = System.currentTimeMillis();
+        int count = TTA_AUGMENTATIONS.length;
+        if (singlePassMs > 0) {
+            count = (int) Math.min(count, ttaMaxExtraMs / singlePassMs);
+        }
+        if (count <= 0) {
+            Log.d(TAG, "Skipping test-time augmentation - single pass took " + singlePassMs + "ms");
+            return probabilities;
+        }
         
-        // Convert pixels to normalized float values in CHW format
-        for (int i = 0; i < pixels.length; i++) {
-            int pixel = pixels[i];
+        ensureTtaBuffers(count, probabilities.length);
+        System.arraycopy(pixels, 0, ttaSource, 0, ImagePreprocessor.PLANE_SIZE);
+        
+        float[] sum = probabilities.clone();
+        int views = 1;
+        
+        try {
+            ttaBuffer.clear();
+            for (int i = 0; i < count; i++) {
+                TTA_AUGMENTATIONS[i].apply(ttaSource, ImagePreprocessor.INPUT_SIZE, ttaPixels);
+                ImagePreprocessor.writeChw(ttaPixels, ttaChw, 0);
+                ttaBuffer.put(ttaChw);
+            }
+            ttaBuffer.rewind();
             
-            // Extract RGB channels (0-255)
-            float r = ((pixel >> 16) & 0xFF) / 255.0f;
-            float g = ((pixel >> 8) & 0xFF) / 255.0f;
-            float b = (pixel & 0xFF) / 255.0f;
+            float[] rawScores = model.forward(IValue.from(ttaTensor)).toTensor().getDataAsFloatArray();
+            if (rawScores.length != count * sum.length) {
+                throw new IllegalStateException("Unexpected batch output size: " + rawScores.length);
+            }
             
-            // Apply ImageNet normalization
-            float rNorm = (r - MEAN[0]) / STD[0];
-            float gNorm = (g - MEAN[1]) / STD[1];
-            float bNorm = (b - MEAN[2]) / STD[2];
+            for (int i = 0; i < count; i++) {
+                TensorMath.softmax(rawScores, i * sum.length, sum.length, ttaProbabilities);
+                addInto(sum, ttaProbabilities);
+            }
+            views += count;
             
-            // Store in CHW format (Channels-Height-Width)
-            floatArray[i] = rNorm;                                    // R channel
-            floatArray[INPUT_SIZE * INPUT_SIZE + i] = gNorm;         // G channel
-            floatArray[2 * INPUT_SIZE * INPUT_SIZE + i] = bNorm;     // B channel
+        } catch (Exception e) {
+            // Models exported with a fixed batch dimension: one view at a time, within the budget
+            Log.w(TAG, "Batched augmentation failed, running views sequentially", e);
+            for (int i = 0; i < count; i++) {
+                if (System.currentTimeMillis() - startTime + singlePassMs > ttaMaxExtraMs) break;
+                
+                TTA_AUGMENTATIONS[i].apply(ttaSource, ImagePreprocessor.INPUT_SIZE, preprocessor.getPixels());
+                Tensor inputTensor = preprocessor.fillInputTensor();
+                float[] rawScores = model.forward(IValue.from(inputTensor)).toTensor().getDataAsFloatArray();
+                TensorMath.softmax(rawScores, 0, sum.length, ttaProbabilities);
+                addInto(sum, ttaProbabilities);
+                views++;
+            }
         }
         
-        // Clean up
-        if (resized != bitmap) {
-            resized.recycle();
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] /= views;
         }
         
-        // Create tensor with shape [1, 3, 224, 224]
-        return Tensor.fromBlob(floatArray, new long[]{1, 3, INPUT_SIZE, INPUT_SIZE});
+        Log.d(TAG, String.format("Test-time augmentation: %d views, top-1 %.3f -> %.3f, +%dms",
+                views, probabilities[TensorMath.argmax(probabilities)], sum[TensorMath.argmax(sum)],
+                System.currentTimeMillis() - startTime));
+        return sum;
+    }
+    
+    /**
+     * Allocate augmentation buffers, reusing them while the view count stays the same
+     */
+    private void ensureTtaBuffers(int count, int numClasses) {
+        if (ttaSource == null) {
+            ttaSource = new int[ImagePreprocessor.PLANE_SIZE];
+            ttaPixels = new int[ImagePreprocessor.PLANE_SIZE];
+            ttaChw = new float[ImagePreprocessor.TENSOR_SIZE];
+        }
+        if (ttaProbabilities == null || ttaProbabilities.length != numClasses) {
+            ttaProbabilities = new float[numClasses];
+        }
+        if (ttaBuffer == null || ttaBufferCount != count) {
+            ttaBuffer = Tensor.allocateFloatBuffer(count * ImagePreprocessor.TENSOR_SIZE);
+            ttaTensor = Tensor.fromBlob(ttaBuffer, new long[]{
+                    count, 3, ImagePreprocessor.INPUT_SIZE, ImagePreprocessor.INPUT_SIZE});
+            ttaBufferCount = count;
+        }
+    }
+    
+    private static void addInto(float[] sum, float[] values) {
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += values[i];
+        }
     }
     
     /**
-     * Apply softmax to convert raw scores to probabilities
+     * Predict from an already normalized [1, 3, 224, 224] tensor (live camera frames)
+     * Bypasses the prediction cache - consecutive frames are never re-imported images.
+     * Never augmented - there is no pixel grid to augment and frames arrive continuously.
      */
-    private float[] softmax(float[] logits) {
-        float[] probabilities = new float[logits.length];
+    public synchronized PredictionResult predictPreprocessed(Tensor inputTensor) {
+        if (model == null) {
+            Log.e(TAG, "PyTorch model not loaded");
+            return null;
+        }
+
+        try {
+            float[] rawScores = model.forward(IValue.from(inputTensor)).toTensor().getDataAsFloatArray();
+            postprocessor.process(rawScores, 0, rawScores.length);
+            return createResult(postprocessor);
+        } catch (Exception e) {
+            Log.e(TAG, "❌ PyTorch prediction error", e);
+            return null;
+        }
+    }
+
+    /**
+     * Predict several images of the same plant with a single batched forward pass
+     * Builds one [N, 3, 224, 224] tensor and aggregates the per-image probabilities
+     * into a combined verdict. Falls back to sequential predictions if the model
+     * rejects batched input.
+     */
+    public synchronized BatchPredictionResult predictBatch(List<Bitmap> bitmaps) {
+        if (model == null) {
+            Log.e(TAG, "PyTorch model not loaded");
+            return null;
+        }
+        if (bitmaps == null || bitmaps.isEmpty()) {
+            return null;
+        }
+        
+        long startTime = System.currentTimeMillis();
+        List<PredictionResult> results = new ArrayList<>(bitmaps.size());
+        float[] probabilitySum = null;
         
-        // Find max for numerical stability
-        float max = Float.NEGATIVE_INFINITY;
-        for (float logit : logits) {
-            if (logit > max) max = logit;
+        for (int start = 0; start < bitmaps.size(); start += MAX_BATCH_SIZE) {
+            List<Bitmap> chunk = bitmaps.subList(start, Math.min(bitmaps.size(), start + MAX_BATCH_SIZE));
+            probabilitySum = forwardBatch(chunk, results, probabilitySum);
         }
         
-        // Compute exp and sum
-        float sum = 0.0f;
-        for (int i = 0; i < logits.length; i++) {
-            probabilities[i] = (float) Math.exp(logits[i] - max);
-            sum += probabilities[i];
+        if (results.isEmpty()) {
+            Log.e(TAG, "Batch prediction produced no results");
+            return null;
         }
         
-        // Normalize
-        for (int i = 0; i < probabilities.length; i++) {
-            probabilities[i] /= sum;
+        // Combined verdict: mean probability over all images of the plant
+        for (int i = 0; i < probabilitySum.length; i++) {
+            probabilitySum[i] /= results.size();
+        }
+        PredictionResult combined = createResult(probabilitySum);
+        if (combined == null) {
+            return null;
         }
         
-        return probabilities;
+        long processingTime = System.currentTimeMillis() - startTime;
+        Log.i(TAG, String.format("🎯 Batch Prediction: %s (%.1f%%) from %d images - %dms", 
+                combined.className, combined.confidence * 100, results.size(), processingTime));
+        
+        return new BatchPredictionResult(combined, results, processingTime);
     }
     
     /**
-     * Find index of maximum value (argmax)
+     * Run one forward pass over up to MAX_BATCH_SIZE images, adding a result per image
+     * and its probabilities to probabilitySum (allocated on first use and returned)
      */
-    private int argmax(float[] array) {
-        int maxIndex = 0;
-        float maxValue = array[0];
+    private float[] forwardBatch(List<Bitmap> bitmaps, List<PredictionResult> results, float[] probabilitySum) {
+        int batchSize = bitmaps.size();
+        float[] rawScores = null;
         
-        for (int i = 1; i < array.length; i++) {
-            if (array[i] > maxValue) {
-                maxValue = array[i];
-                maxIndex = i;
+        try {
+            ensureBatchBuffer(batchSize);
+            batchBuffer.clear();
+            for (Bitmap bitmap : bitmaps) {
+                preprocessor.preprocessInto(bitmap, batchBuffer);
             }
+            rawScores = forwardBatchBuffer(batchSize);
+        } catch (Exception e) {
+            // Models exported with a fixed batch dimension cannot take [N, ...] input
+            Log.w(TAG, "Batched forward pass failed, falling back to sequential inference", e);
         }
         
-        return maxIndex;
+        if (rawScores != null) {
+            int numClasses = rawScores.length / batchSize;
+            for (int i = 0; i < batchSize; i++) {
+                probabilitySum = accumulate(rawScores, i * numClasses, numClasses, results, probabilitySum);
+            }
+        } else {
+            for (Bitmap bitmap : bitmaps) {
+                float[] singleScores = forwardSingle(bitmap);
+                if (singleScores != null) {
+                    probabilitySum = accumulate(singleScores, 0, singleScores.length, results, probabilitySum);
+                }
+            }
+        }
+        return probabilitySum;
     }
     
     /**
-     * Log top N predictions for debugging
+     * Postprocess one row of logits with the fused postprocessor, keep its result and
+     * add its probabilities to the running sum
      */
-    private void logTopPredictions(float[] probabilities, int topN) {
-        try {
-            // Create array of indices
-            Integer[] indices = new Integer[probabilities.length];
-            for (int i = 0; i < indices.length; i++) {
-                indices[i] = i;
-            }
-            
-            // Sort by probability (descending)
-            java.util.Arrays.sort(indices, (a, b) -> Float.compare(probabilities[b], probabilities[a]));
-            
-            Log.d(TAG, "🏆 Top " + topN + " predictions:");
-            for (int i = 0; i < Math.min(topN, indices.length); i++) {
-                int idx = indices[i];
-                String className = (idx < CLASSES.length) ? CLASSES[idx] : "Unknown_" + idx;
-                Log.d(TAG, String.format("   %d. %s: %.3f (%.1f%%)", 
-                        i + 1, className, probabilities[idx], probabilities[idx] * 100));
-            }
-        } catch (Exception e) {
-            Log.w(TAG, "Error logging top predictions", e);
+    private float[] accumulate(float[] rawScores, int offset, int numClasses,
+                               List<PredictionResult> results, float[] probabilitySum) {
+        postprocessor.process(rawScores, offset, numClasses);
+        PredictionResult result = createResult(postprocessor);
+        if (result == null) {
+            return probabilitySum;
         }
+        results.add(result);
+        
+        if (probabilitySum == null) {
+            probabilitySum = new float[numClasses];
+        }
+        addInto(probabilitySum, postprocessor.getProbabilities());
+        return probabilitySum;
     }
     
     /**
-     * Extract plant name from class name
+     * Reuse the batch buffer while the batch size stays the same
      */
-    private String extractPlantName(String className) {
-        if (className != null && className.contains("___")) {
-            return className.split("___")[0].replace("_", " ");
+    private void ensureBatchBuffer(int batchSize) {
+        if (batchBuffer == null || batchBufferSize != batchSize) {
+            batchBuffer = Tensor.allocateFloatBuffer(batchSize * ImagePreprocessor.TENSOR_SIZE);
+            batchBufferSize = batchSize;
         }
-        return "Unknown Plant";
     }
     
     /**
-     * Extract disease name from class name
+     * Forward the filled batch buffer and return the logits, batchSize rows of equal length
      */
-    private String extractDiseaseName(String className) {
-        if (className != null && className.contains("___")) {
-            String disease = className.split("___")[1];
-            return disease.equals("healthy") ? "Healthy" : disease.replace("_", " ");
+    private float[] forwardBatchBuffer(int batchSize) {
+        batchBuffer.rewind();
+        Tensor inputTensor = Tensor.fromBlob(batchBuffer, new long[]{
+                batchSize, 3, ImagePreprocessor.INPUT_SIZE, ImagePreprocessor.INPUT_SIZE});
+        float[] rawScores = model.forward(IValue.from(inputTensor)).toTensor().getDataAsFloatArray();
+        
+        if (rawScores.length % batchSize != 0) {
+            throw new IllegalStateException("Unexpected batch output size: " + rawScores.length);
         }
-        return "Unknown";
+        return rawScores;
     }
     
     /**
-     * Copy asset file to internal storage
+     * Classify a large photo tile by tile and build a plant-level verdict with a
+     * lesion heatmap. The preview - the whole photo, downscaled and upright - is
+     * screened first like predict(bitmap, true), and is classified as a single
+     * image instead when the photo cannot be tiled. Either way the result carries
+     * the preview's quality.
+     * Returns null if the model fails.
+     *
+     * @throws ImageRejectedException if screening rejects the preview
      */
-    private File assetFilePath(String assetName) {
-        File file = new File(context.getFilesDir(), assetName);
+    public synchronized PredictionResult predictTiled(String imagePath, Bitmap preview) {
+        if (model == null) {
+            Log.e(TAG, "PyTorch model not loaded");
+            return null;
+        }
         
-        // Check if file already exists and is valid
-        if (file.exists() && file.length() > 0) {
-            Log.d(TAG, "Using existing model file: " + file.getAbsolutePath());
-            return file;
+        // Soil and blurry shots must not cost a forward pass per tile
+        try {
+            screen(preprocessor.loadPixels(preview));
+        } catch (ImageRejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error screening image", e);
+            return null;
         }
         
-        try (InputStream is = context.getAssets().open(assetName);
-             FileOutputStream os = new FileOutputStream(file)) {
+        PredictionResult result = classifyTiles(imagePath);
+        if (result == null) {
+            Log.w(TAG, "Tiled analysis unavailable, using single image prediction");
+            result = predict(preview, false, false);
+        }
+        if (result != null) {
+            result.setQuality(imageQuality.getScore(), imageQuality.getIssue());
+        }
+        return result;
+    }
+    
+    /**
+     * Tiles overlap, are region-decoded one at a time into a reused bitmap and run
+     * in a single batched forward pass; the tile budget caps memory regardless of
+     * the photo resolution.
+     * Returns null if the image cannot be region-decoded or the model fails.
+     */
+    private TiledPredictionResult classifyTiles(String imagePath) {
+        RegionTileSource source = RegionTileSource.open(imagePath);
+        if (source == null) {
+            return null;
+        }
+        
+        try {
+            long startTime = System.currentTimeMillis();
+            TileGrid grid = TileGrid.plan(source.getWidth(), source.getHeight(),
+                    ImagePreprocessor.INPUT_SIZE, TILE_OVERLAP, MAX_TILES);
             
-            byte[] buffer = new byte[4 * 1024];
-            int read;
-            long totalBytes = 0;
+            float[][] tileProbabilities = forwardTiles(source, grid);
+            float[] diseaseScores = TileAggregator.diseaseScores(tileProbabilities, labels.getHealthyMask());
+            float[] verdict = TileAggregator.combine(tileProbabilities, diseaseScores,
+                    LesionHeatmap.LESION_THRESHOLD);
+            if (verdict == null) {
+                Log.e(TAG, "Tiled prediction produced no results");
+                return null;
+            }
             
-            while ((read = is.read(buffer)) != -1) {
-                os.write(buffer, 0, read);
-                totalBytes += read;
+            PredictionResult result = createResult(verdict);
+            if (result == null) {
+                return null;
             }
-            os.flush();
             
-            Log.d(TAG, "Model copied to: " + file.getAbsolutePath() + " (" + totalBytes + " bytes)");
-            return file;
+            // Heatmap in display orientation, matching the image shown to the user
+            LesionHeatmap heatmap = new LesionHeatmap(grid.getCols(), grid.getRows(), diseaseScores)
+                    .rotate(source.getRotationDegrees());
+            
+            long processingTime = System.currentTimeMillis() - startTime;
+            Log.i(TAG, String.format("🎯 Tiled Prediction: %s (%.1f%%) from %d tiles of %dpx - %dms", 
+                    result.className, result.confidence * 100, grid.getTileCount(), grid.getTileSide(),
+                    processingTime));
             
-        } catch (IOException e) {
-            Log.e(TAG, "Error copying asset: " + assetName, e);
+            return new TiledPredictionResult(result, heatmap, grid.getTileCount());
+            
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Tiled prediction error", e);
+            return null;
+        } finally {
+            source.close();
+        }
+    }
+    
+    /**
+     * Decode, preprocess and classify every tile of the grid
+     * Tile probabilities are written into pooled rows, valid until the next call.
+     */
+    private float[][] forwardTiles(RegionTileSource source, TileGrid grid) {
+        int tileCount = grid.getTileCount();
+        float[][] probabilities = new float[tileCount][];
+        float[] rawScores = null;
+        
+        try {
+            ensureBatchBuffer(tileCount);
+            batchBuffer.clear();
+            for (int i = 0; i < tileCount; i++) {
+                Bitmap tile = source.decodeTile(grid, i, ImagePreprocessor.INPUT_SIZE);
+                if (tile == null) {
+                    throw new IllegalStateException("Failed to decode tile " + i);
+                }
+                // Tiles are decoded in sensor orientation; the model expects upright input
+                preprocessor.preprocessInto(tile, source.getRotationDegrees(), batchBuffer);
+            }
+            rawScores = forwardBatchBuffer(tileCount);
+        } catch (Exception e) {
+            // Fixed batch dimension (or a bad tile): classify tiles one at a time
+            Log.w(TAG, "Batched tile pass failed, falling back to sequential inference", e);
+        }
+        
+        if (rawScores != null) {
+            int numClasses = rawScores.length / tileCount;
+            for (int i = 0; i < tileCount; i++) {
+                probabilities[i] = tileRow(i, numClasses);
+                TensorMath.softmax(rawScores, i * numClasses, numClasses, probabilities[i]);
+            }
+        } else {
+            for (int i = 0; i < tileCount; i++) {
+                Bitmap tile = source.decodeTile(grid, i, ImagePreprocessor.INPUT_SIZE);
+                float[] tileScores = tile != null ? forwardSingle(tile, source.getRotationDegrees()) : null;
+                if (tileScores != null) {
+                    probabilities[i] = tileRow(i, tileScores.length);
+                    TensorMath.softmax(tileScores, 0, tileScores.length, probabilities[i]);
+                }
+            }
+        }
+        
+        return probabilities;
+    }
+    
+    /**
+     * Pooled probability row for a tile, reallocated only when the class count changes
+     */
+    private float[] tileRow(int index, int numClasses) {
+        if (tileRows == null || tileRows[0].length != numClasses) {
+            tileRows = new float[MAX_TILES][numClasses];
+        }
+        return tileRows[index];
+    }
+    
+    /**
+     * Run a single-image forward pass and return the raw logits, or null on failure
+     */
+    private float[] forwardSingle(Bitmap bitmap) {
+        return forwardSingle(bitmap, 0);
+    }
+    
+    /**
+     * Rotate a bitmap clockwise to upright, run a single-image forward pass and return
+     * the raw logits, or null on failure
+     */
+    private float[] forwardSingle(Bitmap bitmap, int rotationDegrees) {
+        try {
+            preprocessor.loadPixels(bitmap, rotationDegrees);
+            Tensor inputTensor = preprocessor.fillInputTensor();
+            return model.forward(IValue.from(inputTensor)).toTensor().getDataAsFloatArray();
+        } catch (Exception e) {
+            Log.e(TAG, "❌ PyTorch prediction error", e);
             return null;
         }
     }
     
+    /**
+     * Build a prediction result from a probability vector
+     */
+    private PredictionResult createResult(float[] probabilities) {
+        postprocessor.processProbabilities(probabilities, probabilities.length);
+        return createResult(postprocessor);
+    }
+    
+    /**
+     * Build a prediction result from the postprocessor's last output
+     */
+    private PredictionResult createResult(FusedPostprocessor output) {
+        int count = output.getCount();
+        return createResult(Arrays.copyOf(output.getTopIndices(), count),
+                Arrays.copyOf(output.getTopValues(), count), output.getNormalizedEntropy());
+    }
+    
+    /**
+     * Build a prediction result from cached top-K output, estimating the entropy
+     */
+    private PredictionResult createResult(int[] topIndices, float[] topConfidences) {
+        return createResult(topIndices, topConfidences,
+                FusedPostprocessor.estimateNormalizedEntropy(topConfidences, labels.size()));
+    }
+    
+    /**
+     * Build a prediction result from top-K output (descending by confidence)
+     */
+    private PredictionResult createResult(int[] topIndices, float[] topConfidences, float entropy) {
+        if (topIndices.length == 0) {
+            return null;
+        }
+        
+        int bestIndex = topIndices[0];
+        float confidence = topConfidences[0];
+        
+        // Validate prediction
+        LabelTable.Label label = labels.get(bestIndex);
+        if (label == null) {
+            Log.e(TAG, "Invalid prediction index: " + bestIndex);
+            return null;
+        }
+        
+        return new PredictionResult(label, confidence, topIndices, topConfidences, entropy);
+    }
+    
+    /**
+     * Log top N predictions for debugging
+     */
+    private void logTopPredictions(int[] topIndices, float[] topConfidences, int topN) {
+        Log.d(TAG, "🏆 Top " + topN + " predictions:");
+        for (int i = 0; i < Math.min(topN, topIndices.length); i++) {
+            Log.d(TAG, String.format("   %d. %s: %.3f (%.1f%%)", 
+                    i + 1, getClassName(topIndices[i]), topConfidences[i], topConfidences[i] * 100));
+        }
+    }
+    
     /**
      * Release model resources
      */
-    public void release() {
+    public synchronized void release() {
         if (model != null) {
             model = null;
+            preprocessor = null;
+            batchBuffer = null;
+            tileRows = null;
+            ttaBuffer = null;
+            ttaTensor = null;
+            ttaSource = null;
             Log.d(TAG, "PyTorch model resources released");
         }
     }
@@ -349,11 +851,81 @@ public class PlantDiseaseClassifier {
      */
     public String getModelInfo() {
         if (model != null) {
-            return "PyTorch Model: " + MODEL_NAME + " (" + CLASSES.length + " classes)";
+            return "PyTorch Model: " + variant.assetName + " (" + labels.size() + " classes)";
         }
         return "Model not loaded";
     }
     
+    /**
+     * Choose between a single pass and test-time augmentation
+     */
+    public synchronized void setPredictionMode(PredictionMode predictionMode) {
+        this.predictionMode = predictionMode;
+    }
+    
+    public synchronized PredictionMode getPredictionMode() {
+        return predictionMode;
+    }
+    
+    /**
+     * AUTO mode augments results below this confidence, adding at most maxExtraMs
+     */
+    public synchronized void setAugmentationPolicy(float confidenceThreshold, long maxExtraMs) {
+        this.ttaConfidenceThreshold = confidenceThreshold;
+        this.ttaMaxExtraMs = maxExtraMs;
+    }
+    
+    /**
+     * Attach a prediction cache consulted before every single-image forward pass
+     */
+    public synchronized void setPredictionCache(PredictionCache predictionCache) {
+        this.predictionCache = predictionCache;
+    }
+    
+    /**
+     * Identifies the model outputs for cache invalidation
+     */
+    public String getModelVersion() {
+        String stamp = modelStore != null ? modelStore.getVersionStamp() : "0";
+        return variant.assetName + "/" + labels.size() + "/" + stamp;
+    }
+    
+    /**
+     * Which model build this classifier runs
+     */
+    public ModelVariant getVariant() {
+        return variant;
+    }
+    
+    /**
+     * Per-class metadata for this model
+     */
+    public LabelTable getLabelTable() {
+        return labels;
+    }
+    
+    /**
+     * Swap in a table with resolved DiseaseInfo links (same classes, same order)
+     */
+    public void setLabelTable(LabelTable labelTable) {
+        if (labelTable != null && labelTable.size() == labels.size()) {
+            labels = labelTable;
+            activeLabels = labelTable;
+        }
+    }
+    
+    /**
+     * Get class name for a model output index
+     */
+    public static String getClassName(int index) {
+        LabelTable table = activeLabels;
+        if (table != null) {
+            LabelTable.Label label = table.get(index);
+            return label != null ? label.className : "Unknown_" + index;
+        }
+        return (index >= 0 && index < CLASSES.length) ? CLASSES[index] : "Unknown_" + index;
+    }
+    
     /**
      * Check if model is loaded
      */
@@ -370,14 +942,88 @@ public class PlantDiseaseClassifier {
         public final String diseaseName;
         public final float confidence;
         public final boolean isHealthy;
+        public final int classIndex;
+        public final int[] topIndices;       // Descending by confidence, topIndices[0] == classIndex
+        public final float[] topConfidences;
+        public final LabelTable.Label label;  // Null for results not built from a label table
+        public final float margin;            // Top-1 minus top-2 confidence
+        public final float entropy;           // Normalized entropy 0 (certain) - 1 (uniform), -1 if unknown
+        
+        // Input quality, set when the image was screened before inference
+        private float qualityScore = -1f;
+        private ImageQuality.Issue qualityIssue;
         
         public PredictionResult(String className, String plantName, String diseaseName, 
                               float confidence, boolean isHealthy) {
+            this(className, plantName, diseaseName, confidence, isHealthy, -1, new int[0], new float[0]);
+        }
+        
+        public PredictionResult(LabelTable.Label label, float confidence,
+                              int[] topIndices, float[] topConfidences) {
+            this(label, confidence, topIndices, topConfidences, -1f);
+        }
+        
+        public PredictionResult(LabelTable.Label label, float confidence,
+                              int[] topIndices, float[] topConfidences, float entropy) {
+            this(label.className, label.plantName, label.diseaseName, confidence, label.healthy,
+                    label.index, topIndices, topConfidences, label, entropy);
+        }
+        
+        public PredictionResult(String className, String plantName, String diseaseName, 
+                              float confidence, boolean isHealthy,
+                              int classIndex, int[] topIndices, float[] topConfidences) {
+            this(className, plantName, diseaseName, confidence, isHealthy,
+                    classIndex, topIndices, topConfidences, null, -1f);
+        }
+        
+        private PredictionResult(String className, String plantName, String diseaseName, 
+                               float confidence, boolean isHealthy, int classIndex,
+                               int[] topIndices, float[] topConfidences, LabelTable.Label label,
+                               float entropy) {
             this.className = className;
             this.plantName = plantName;
             this.diseaseName = diseaseName;
             this.confidence = confidence;
             this.isHealthy = isHealthy;
+            this.classIndex = classIndex;
+            this.topIndices = topIndices;
+            this.topConfidences = topConfidences;
+            this.label = label;
+            this.margin = topConfidences.length > 1 ? topConfidences[0] - topConfidences[1] : confidence;
+            this.entropy = entropy;
+        }
+        
+        /**
+         * Low margin or high entropy - the model could not separate the top classes
+         */
+        public boolean isUncertain(float marginThreshold, float entropyThreshold) {
+            return margin < marginThreshold || entropy > entropyThreshold;
+        }
+        
+        void setQuality(float qualityScore, ImageQuality.Issue qualityIssue) {
+            this.qualityScore = qualityScore;
+            this.qualityIssue = qualityIssue;
+        }
+        
+        /**
+         * Input quality 0 (unusable) - 1 (sharp and well exposed), -1 if not measured
+         */
+        public float getQualityScore() {
+            return qualityScore;
+        }
+        
+        /**
+         * Main input quality problem, null if not measured
+         */
+        public ImageQuality.Issue getQualityIssue() {
+            return qualityIssue;
+        }
+        
+        /**
+         * Compact top-K encoding for ScanResult storage
+         */
+        public String encodeTopPredictions() {
+            return TopKSelector.encode(topIndices, topConfidences);
         }
         
         @Override
@@ -386,4 +1032,58 @@ public class PlantDiseaseClassifier {
                     plantName, diseaseName, confidence, isHealthy);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Plant-level verdict from tiled inference, with the per-tile lesion heatmap
+     */
+    public static class TiledPredictionResult extends PredictionResult {
+        public final LesionHeatmap heatmap;
+        public final int tileCount;
+        
+        public TiledPredictionResult(PredictionResult verdict, LesionHeatmap heatmap, int tileCount) {
+            super(verdict.className, verdict.plantName, verdict.diseaseName, verdict.confidence,
+                    verdict.isHealthy, verdict.classIndex, verdict.topIndices, verdict.topConfidences,
+                    verdict.label, verdict.entropy);
+            this.heatmap = heatmap;
+            this.tileCount = tileCount;
+        }
+    }
+    
+    /**
+     * Batch prediction result - combined verdict for one plant plus per-image results.
+     * Is itself the combined verdict, so it can be saved like any single prediction.
+     */
+    public static class BatchPredictionResult extends PredictionResult {
+        public final PredictionResult combined;
+        public final List<PredictionResult> perImage;
+        public final long processingTimeMs;
+        
+        public BatchPredictionResult(PredictionResult combined, List<PredictionResult> perImage, 
+                                     long processingTimeMs) {
+            super(combined.className, combined.plantName, combined.diseaseName, combined.confidence,
+                    combined.isHealthy, combined.classIndex, combined.topIndices, combined.topConfidences,
+                    combined.label, combined.entropy);
+            this.combined = combined;
+            this.perImage = perImage;
+            this.processingTimeMs = processingTimeMs;
+        }
+        
+        /**
+         * Fraction of images whose own top-1 matches the combined verdict
+         */
+        public float getAgreement() {
+            if (combined == null || perImage.isEmpty()) return 0f;
+            int agreeing = 0;
+            for (PredictionResult result : perImage) {
+                if (result.classIndex == combined.classIndex) agreeing++;
+            }
+            return (float) agreeing / perImage.size();
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("BatchPredictionResult{combined=%s, images=%d, agreement=%.2f, time=%dms}",
+                    combined, perImage.size(), getAgreement(), processingTimeMs);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.plantcare.diseasedetector.ml;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.plantcare.diseasedetector.data.database.AppDatabase;
+import com.plantcare.diseasedetector.data.database.PredictionCacheDao;
+import com.plantcare.diseasedetector.data.models.PredictionCacheEntry;
+import com.plantcare.diseasedetector.ml.core.TopKSelector;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed prediction cache keyed by the perceptual hash of the model input
+ * Two tiers: an in-memory LRU and a small persistent tier in Room for re-imports.
+ * Only exact hash matches are served - a 64-bit dHash of a 224px crop is too coarse
+ * to tell a similar leaf in the same framing from the same photo. Entries are also
+ * keyed by the prediction variant (mode and augmentation policy), since a
+ * single-pass result must not stand in for an augmented one.
+ */
+public class PredictionCache {
+
+    private static final String TAG = "PredictionCache";
+
+    private static final int MAX_MEMORY_ENTRIES = 64;
+    private static final int MAX_DISK_ENTRIES = 500;
+    private static final int TRIM_INTERVAL = 25;         // Disk trim every N writes
+    private static final String VARIANT_SEPARATOR = "#";
+
+    private final String modelVersion;
+    private final PredictionCacheDao cacheDao;
+    private final ExecutorService diskExecutor;
+    private final LinkedHashMap<String, Entry> memoryCache;
+
+    // Metrics
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong savedMillis = new AtomicLong();
+    private int writesSinceTrim = 0;
+
+    public PredictionCache(Context context, String modelVersion) {
+        this.modelVersion = modelVersion;
+        this.cacheDao = AppDatabase.getInstance(context).predictionCacheDao();
+        this.diskExecutor = Executors.newSingleThreadExecutor();
+        this.memoryCache = new LinkedHashMap<String, Entry>(MAX_MEMORY_ENTRIES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > MAX_MEMORY_ENTRIES;
+            }
+        };
+
+        // Results from previous models (and entries written before variants were keyed) are useless
+        runOnDisk(() -> {
+            try {
+                cacheDao.deleteOtherVersions(modelVersion + VARIANT_SEPARATOR);
+            } catch (Exception e) {
+                Log.w(TAG, "Error pruning stale cache entries", e);
+            }
+        });
+    }
+
+    /**
+     * Look up a cached prediction. Call from a background thread - may hit the database.
+     *
+     * @param variant identifies how the result was produced, e.g. the prediction mode
+     */
+    public Entry get(long imageHash, String variant) {
+        lookups.incrementAndGet();
+
+        String key = memoryKey(imageHash, variant);
+        Entry entry;
+        synchronized (memoryCache) {
+            entry = memoryCache.get(key);
+        }
+        if (entry != null) {
+            memoryHits.incrementAndGet();
+            savedMillis.addAndGet(entry.inferenceTimeMs);
+            return entry;
+        }
+
+        try {
+            String version = diskVersion(variant);
+            PredictionCacheEntry stored = cacheDao.getEntry(imageHash, version);
+            if (stored != null && stored.getTopPredictions() != null) {
+                entry = new Entry(
+                        TopKSelector.decodeIndices(stored.getTopPredictions()),
+                        TopKSelector.decodeValues(stored.getTopPredictions()),
+                        stored.getInferenceTimeMs());
+
+                synchronized (memoryCache) {
+                    memoryCache.put(key, entry);
+                }
+                runOnDisk(() -> touch(imageHash, version));
+
+                diskHits.incrementAndGet();
+                savedMillis.addAndGet(entry.inferenceTimeMs);
+                return entry;
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Error reading prediction cache", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Store a fresh prediction in both tiers (disk write is asynchronous)
+     */
+    public void put(long imageHash, String variant, int[] topIndices, float[] topConfidences, long inferenceTimeMs) {
+        Entry entry = new Entry(topIndices, topConfidences, inferenceTimeMs);
+        synchronized (memoryCache) {
+            memoryCache.put(memoryKey(imageHash, variant), entry);
+        }
+
+        String encoded = TopKSelector.encode(topIndices, topConfidences);
+        String version = diskVersion(variant);
+        runOnDisk(() -> {
+            try {
+                cacheDao.insertEntry(new PredictionCacheEntry(imageHash, version, encoded, inferenceTimeMs));
+                if (++writesSinceTrim >= TRIM_INTERVAL) {
+                    writesSinceTrim = 0;
+                    cacheDao.trimToSize(MAX_DISK_ENTRIES);
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Error writing prediction cache", e);
+            }
+        });
+    }
+
+    private static String memoryKey(long imageHash, String variant) {
+        return variant + VARIANT_SEPARATOR + imageHash;
+    }
+
+    /**
+     * Value of the model_version column - the model version qualified by the variant
+     */
+    private String diskVersion(String variant) {
+        return modelVersion + VARIANT_SEPARATOR + variant;
+    }
+
+    private void touch(long imageHash, String version) {
+        try {
+            cacheDao.touchEntry(imageHash, version, System.currentTimeMillis());
+        } catch (Exception e) {
+            Log.w(TAG, "Error updating cache entry", e);
+        }
+    }
+
+    /**
+     * Drop the in-memory tier (e.g. under memory pressure)
+     */
+    public void clearMemory() {
+        synchronized (memoryCache) {
+            memoryCache.clear();
+        }
+    }
+
+    /**
+     * Drop both tiers
+     */
+    public void clear() {
+        clearMemory();
+        runOnDisk(() -> {
+            try {
+                cacheDao.deleteAll();
+            } catch (Exception e) {
+                Log.w(TAG, "Error clearing prediction cache", e);
+            }
+        });
+    }
+
+    /**
+     * Stop the disk thread once this cache is replaced; queued writes still complete
+     * and later calls only touch the memory tier
+     */
+    public void close() {
+        diskExecutor.shutdown();
+    }
+
+    private void runOnDisk(Runnable task) {
+        try {
+            diskExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            Log.d(TAG, "Cache closed - skipping disk access");
+        }
+    }
+
+    /**
+     * Model version this cache holds results for
+     */
+    public String getModelVersion() {
+        return modelVersion;
+    }
+
+    // ===== METRICS =====
+
+    public long getLookupCount() {
+        return lookups.get();
+    }
+
+    public long getHitCount() {
+        return memoryHits.get() + diskHits.get();
+    }
+
+    public long getMemoryHitCount() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    /**
+     * Fraction of lookups served from cache
+     */
+    public float getHitRate() {
+        long total = lookups.get();
+        return total > 0 ? (float) getHitCount() / total : 0f;
+    }
+
+    /**
+     * Forward-pass time avoided by cache hits, in milliseconds
+     */
+    public long getSavedMillis() {
+        return savedMillis.get();
+    }
+
+    /**
+     * Human readable cache statistics
+     */
+    public String getStats() {
+        return String.format("Prediction cache: %d lookups, %.1f%% hits (%d memory, %d disk), %dms saved",
+                getLookupCount(), getHitRate() * 100, getMemoryHitCount(), getDiskHitCount(), getSavedMillis());
+    }
+
+    /**
+     * Cached top-K output
+     */
+    public static class Entry {
+        public final int[] topIndices;
+        public final float[] topConfidences;
+        public final long inferenceTimeMs;
+
+        public Entry(int[] topIndices, float[] topConfidences, long inferenceTimeMs) {
+            this.topIndices = topIndices;
+            this.topConfidences = topConfidences;
+            this.inferenceTimeMs = inferenceTimeMs;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.plantcare.diseasedetector.ml;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.util.Log;
+
+import com.plantcare.diseasedetector.ml.core.TileGrid;
+import com.plantcare.diseasedetector.utils.ImageUtils;
+
+import java.io.IOException;
+
+/**
+ * Decodes the tiles of a TileGrid straight from a large image file
+ * Each tile is region-decoded with the largest power-of-2 sample size that keeps
+ * it at least model-input sized, into one reused bitmap - so only a single
+ * decoded tile is ever held in memory, whatever the photo resolution.
+ *
+ * Not thread-safe. Close when done.
+ */
+public class RegionTileSource {
+
+    private static final String TAG = "RegionTileSource";
+
+    private final BitmapRegionDecoder decoder;
+    private final int width;
+    private final int height;
+    private final int rotationDegrees;
+    private final Rect region = new Rect();
+    private final BitmapFactory.Options options = new BitmapFactory.Options();
+    private Bitmap tileBitmap;
+
+    private RegionTileSource(BitmapRegionDecoder decoder, int rotationDegrees) {
+        this.decoder = decoder;
+        this.width = decoder.getWidth();
+        this.height = decoder.getHeight();
+        this.rotationDegrees = rotationDegrees;
+        this.options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        this.options.inMutable = true;
+    }
+
+    /**
+     * Open an image for tiling, or null if its format cannot be region-decoded
+     */
+    public static RegionTileSource open(String imagePath) {
+        try {
+            BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(imagePath, false);
+            return new RegionTileSource(decoder, ImageUtils.getRotationDegrees(imagePath));
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "Region decoding not supported for: " + imagePath, e);
+            return null;
+        }
+    }
+
+    /**
+     * Raw (un-rotated) image width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Raw (un-rotated) image height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * EXIF rotation needed to display the image upright
+     */
+    public int getRotationDegrees() {
+        return rotationDegrees;
+    }
+
+    /**
+     * Decode one tile. The bitmap is reused by the next call - do not recycle it.
+     */
+    public Bitmap decodeTile(TileGrid grid, int index, int targetSize) {
+        int left = grid.getLeft(index);
+        int top = grid.getTop(index);
+        int side = grid.getTileSide();
+        region.set(left, top, Math.min(width, left + side), Math.min(height, top + side));
+
+        int sampleSize = 1;
+        while (side / (sampleSize * 2) >= targetSize) {
+            sampleSize *= 2;
+        }
+        options.inSampleSize = sampleSize;
+
+        // Every tile of a grid decodes to the same size, so one bitmap serves them all
+        int decodedWidth = (region.width() + sampleSize - 1) / sampleSize;
+        int decodedHeight = (region.height() + sampleSize - 1) / sampleSize;
+        options.inBitmap = tileBitmap != null && !tileBitmap.isRecycled()
+                && tileBitmap.getWidth() == decodedWidth && tileBitmap.getHeight() == decodedHeight
+                ? tileBitmap : null;
+
+        try {
+            Bitmap decoded = decoder.decodeRegion(region, options);
+            if (decoded != tileBitmap && tileBitmap != null) {
+                tileBitmap.recycle();
+            }
+            tileBitmap = decoded;
+        } catch (IllegalArgumentException e) {
+            // inBitmap rejected - decode into a fresh bitmap
+            options.inBitmap = null;
+            if (tileBitmap != null) {
+                tileBitmap.recycle();
+            }
+            tileBitmap = decoder.decodeRegion(region, options);
+        }
+        return tileBitmap;
+    }
+
+    /**
+     * Release the decoder and the tile bitmap
+     */
+    public void close() {
+        decoder.recycle();
+        if (tileBitmap != null) {
+            tileBitmap.recycle();
+            tileBitmap = null;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.plantcare.diseasedetector.ml;
+
+import com.plantcare.diseasedetector.ml.core.PixelNormalizer;
+
+import org.pytorch.Tensor;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Converts YUV_420_888 camera frames straight into the normalized model input
+ * Center-crops to a square, applies the sensor rotation and samples down to
+ * 224x224 in one pass - no intermediate ARGB Bitmap is created.
+ *
+ * Source offsets for every output pixel are precomputed whenever the frame
+ * geometry changes, so the per-frame loop is plain array lookups.
+ *
+ * Not thread-safe - one instance per analysis thread.
+ */
+public class YuvTensorConverter {
+
+    private static final int SIZE = ImagePreprocessor.INPUT_SIZE;
+    private static final int PLANE_SIZE = ImagePreprocessor.PLANE_SIZE;
+
+    // Pooled buffers
+    private final int[] yOffsets = new int[PLANE_SIZE];
+    private final int[] uvOffsets = new int[PLANE_SIZE];
+    private final float[] chwBuffer = new float[ImagePreprocessor.TENSOR_SIZE];
+    private final FloatBuffer inputBuffer;
+    private final Tensor inputTensor;
+    private byte[] yBytes = new byte[0];
+    private byte[] uBytes = new byte[0];
+    private byte[] vBytes = new byte[0];
+
+    // Geometry the offset tables were built for
+    private int lastWidth = -1;
+    private int lastHeight = -1;
+    private int lastRotation = -1;
+    private int lastYRowStride = -1;
+    private int lastUvRowStride = -1;
+    private int lastUvPixelStride = -1;
+
+    public YuvTensorConverter() {
+        inputBuffer = Tensor.allocateFloatBuffer(ImagePreprocessor.TENSOR_SIZE);
+        inputTensor = Tensor.fromBlob(inputBuffer, new long[]{1, 3, SIZE, SIZE});
+    }
+
+    /**
+     * Convert one frame into the shared input tensor.
+     * The returned tensor is overwritten by the next call.
+     *
+     * @param rotationDegrees clockwise rotation needed to display the frame upright
+     */
+    public Tensor convert(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane,
+                          int yRowStride, int uvRowStride, int uvPixelStride,
+                          int width, int height, int rotationDegrees) {
+        if (width != lastWidth || height != lastHeight || rotationDegrees != lastRotation
+                || yRowStride != lastYRowStride || uvRowStride != lastUvRowStride
+                || uvPixelStride != lastUvPixelStride) {
+            buildOffsets(yRowStride, uvRowStride, uvPixelStride, width, height, rotationDegrees);
+        }
+
+        // One bulk copy per plane - array reads are much cheaper than ByteBuffer.get(int)
+        yBytes = copyPlane(yPlane, yBytes);
+        uBytes = copyPlane(uPlane, uBytes);
+        vBytes = copyPlane(vPlane, vBytes);
+
+        float[] out = chwBuffer;
+        float[] redLut = PixelNormalizer.RED_LUT;
+        float[] greenLut = PixelNormalizer.GREEN_LUT;
+        float[] blueLut = PixelNormalizer.BLUE_LUT;
+
+        for (int i = 0; i < PLANE_SIZE; i++) {
+            int y = yBytes[yOffsets[i]] & 0xFF;
+            int uvOffset = uvOffsets[i];
+            int u = (uBytes[uvOffset] & 0xFF) - 128;
+            int v = (vBytes[uvOffset] & 0xFF) - 128;
+
+            // BT.601 full range, 8.8 fixed point
+            int r = y + ((359 * v) >> 8);
+            int g = y - ((88 * u + 183 * v) >> 8);
+            int b = y + ((454 * u) >> 8);
+
+            out[i] = redLut[clamp(r)];
+            out[PLANE_SIZE + i] = greenLut[clamp(g)];
+            out[2 * PLANE_SIZE + i] = blueLut[clamp(b)];
+        }
+
+        inputBuffer.clear();
+        inputBuffer.put(out);
+        inputBuffer.rewind();
+
+        return inputTensor;
+    }
+
+    /**
+     * Map every output pixel to its source Y and UV offsets
+     */
+    private void buildOffsets(int yRowStride, int uvRowStride, int uvPixelStride,
+                              int width, int height, int rotationDegrees) {
+        int side = Math.min(width, height);
+        int cropLeft = (width - side) / 2;
+        int cropTop = (height - side) / 2;
+
+        for (int oy = 0; oy < SIZE; oy++) {
+            int dy = oy * side / SIZE;
+            for (int ox = 0; ox < SIZE; ox++) {
+                int dx = ox * side / SIZE;
+
+                // Displayed (dx, dy) -> sensor (sx, sy) within the crop square
+                int sx;
+                int sy;
+                switch (rotationDegrees) {
+                    case 90:
+                        sx = dy;
+                        sy = side - 1 - dx;
+                        break;
+                    case 180:
+                        sx = side - 1 - dx;
+                        sy = side - 1 - dy;
+                        break;
+                    case 270:
+                        sx = side - 1 - dy;
+                        sy = dx;
+                        break;
+                    default:
+                        sx = dx;
+                        sy = dy;
+                        break;
+                }
+                sx += cropLeft;
+                sy += cropTop;
+
+                int index = oy * SIZE + ox;
+                yOffsets[index] = sy * yRowStride + sx;
+                uvOffsets[index] = (sy >> 1) * uvRowStride + (sx >> 1) * uvPixelStride;
+            }
+        }
+
+        lastWidth = width;
+        lastHeight = height;
+        lastRotation = rotationDegrees;
+        lastYRowStride = yRowStride;
+        lastUvRowStride = uvRowStride;
+        lastUvPixelStride = uvPixelStride;
+    }
+
+    /**
+     * Copy a plane into a reusable array, growing it only when the frame size changes
+     */
+    private static byte[] copyPlane(ByteBuffer plane, byte[] target) {
+        plane.rewind();
+        int length = plane.remaining();
+        if (target.length < length) {
+            target = new byte[length];
+        }
+        plane.get(target, 0, length);
+        return target;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+}
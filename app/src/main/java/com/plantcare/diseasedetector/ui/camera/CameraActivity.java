@@ -1,16 +1,19 @@
 package com.plantcare.diseasedetector.ui.camera;
 
 import android.Manifest;
+import android.content.ClipData;
+import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.provider.MediaStore;
 import android.util.Log;
+import android.util.Size;
 import android.view.View;
 import android.widget.ImageButton;
 import android.widget.ProgressBar;
@@ -21,8 +24,10 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.camera.core.Camera;
 import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.ImageCapture;
 import androidx.camera.core.ImageCaptureException;
+import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
@@ -32,22 +37,41 @@ import androidx.core.content.ContextCompat;
 import androidx.appcompat.app.AlertDialog;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import com.plantcare.diseasedetector.PlantDiseaseApplication;
 import com.plantcare.diseasedetector.R;
-import com.plantcare.diseasedetector.data.database.AppDatabase;
 import com.plantcare.diseasedetector.data.models.ScanResult;
+import com.plantcare.diseasedetector.data.repository.ImageStore;
+import com.plantcare.diseasedetector.data.repository.ScanPersister;
+import com.plantcare.diseasedetector.ml.ImagePreprocessor;
+import com.plantcare.diseasedetector.ml.ImageRejectedException;
+import com.plantcare.diseasedetector.ml.InferenceEngine;
+import com.plantcare.diseasedetector.ml.InferenceMetrics;
+import com.plantcare.diseasedetector.ml.ModelManager;
 import com.plantcare.diseasedetector.ml.PlantDiseaseClassifier;
+import com.plantcare.diseasedetector.ml.YuvTensorConverter;
+import com.plantcare.diseasedetector.ml.core.AutoCaptureDetector;
+import com.plantcare.diseasedetector.ml.core.ImageQuality;
 
 import com.plantcare.diseasedetector.ui.results.ResultsActivity;
+import com.plantcare.diseasedetector.ui.settings.SettingsActivity;
 import com.plantcare.diseasedetector.utils.ImageUtils;
 import com.plantcare.diseasedetector.utils.PermissionUtils;
 
+import org.pytorch.Tensor;
+
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Camera Activity for capturing plant images and performing AI disease detection
@@ -57,14 +81,18 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
 
     private static final String TAG = "CameraActivity";
     private static final int GALLERY_REQUEST_CODE = 200;
+    private static final int MAX_GALLERY_BATCH = 8; // Photos of one plant analyzed together
     private static final int PERMISSION_REQUEST_CODE = 300;
+    private static final Size LIVE_ANALYSIS_RESOLUTION = new Size(640, 480);
+    private static final long LIVE_OVERLAY_INTERVAL_MS = 300; // Throttle overlay text updates
+    private static final int MAX_CAPTURES_IN_FLIGHT = 3; // In-memory captures between shutter and inference
 
     // UI Components
     private PreviewView cameraPreview;
-    private ImageButton btnBack, btnFlash, btnCloseInstructions;
+    private ImageButton btnBack, btnFlash, btnLiveMode, btnAutoCapture, btnCloseInstructions;
     private CardView btnCapture, btnGallery, btnSwitchCamera, cardInstructions;
     private View loadingOverlay, layoutProgress, indicatorAiReady;
-    private TextView tvAiStatus, tvLoadingText, tvProgressText;
+    private TextView tvAiStatus, tvLoadingText, tvProgressText, tvLivePrediction;
     private ProgressBar progressBar;
 
     // Camera Components
@@ -74,16 +102,34 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
     private CameraSelector cameraSelector = CameraSelector.DEFAULT_BACK_CAMERA;
     private boolean isFlashEnabled = false;
 
+    // Live analysis
+    private ImageAnalysis imageAnalysis;
+    private YuvTensorConverter yuvConverter;
+    private ImageQuality frameQuality;
+    private volatile boolean isLiveMode = false;
+    private long lastOverlayUpdate = 0;
+
+    // Auto-capture - the detector is only touched on the analysis thread
+    private final AutoCaptureDetector autoCaptureDetector = new AutoCaptureDetector();
+    private volatile boolean isAutoCapture = false;
+    private volatile boolean autoCaptureArmed = true;  // Cleared while a triggered capture is in flight
+    private volatile boolean autoCaptureReset = false;
+
     // AI Model
     private PlantDiseaseClassifier plantClassifier;
-    private boolean isModelLoaded = false;
+    private volatile boolean isModelLoaded = false;  // Also read on the analysis thread
 
     // Threading
-    private ExecutorService cameraExecutor;
+    private InferenceEngine inferenceEngine;
+    private ExecutorService cameraExecutor; // File and database I/O only
+    private ExecutorService analysisExecutor;
+    private ExecutorService decodeExecutor; // Capture pipeline: in-memory JPEG -> inference bitmap
+    private final AtomicInteger capturesInFlight = new AtomicInteger();
     private Handler mainHandler;
 
-    // Database
-    private AppDatabase database;
+    // Persistence stage of the capture pipeline
+    private ScanPersister scanPersister;
+    private ImageStore imageStore;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -115,6 +161,8 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
             cameraPreview = findViewById(R.id.camera_preview);
             btnBack = findViewById(R.id.btn_back);
             btnFlash = findViewById(R.id.btn_flash);
+            btnLiveMode = findViewById(R.id.btn_live_mode);
+            btnAutoCapture = findViewById(R.id.btn_auto_capture);
             btnCloseInstructions = findViewById(R.id.btn_close_instructions);
             btnCapture = findViewById(R.id.btn_capture);
             btnGallery = findViewById(R.id.btn_gallery);
@@ -126,6 +174,7 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
             tvAiStatus = findViewById(R.id.tv_ai_status);
             tvLoadingText = findViewById(R.id.tv_loading_text);
             tvProgressText = findViewById(R.id.tv_progress_text);
+            tvLivePrediction = findViewById(R.id.tv_live_prediction);
             progressBar = findViewById(R.id.progress_bar);
 
             Log.d(TAG, "Views initialized successfully");
@@ -138,7 +187,10 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
      * Initialize executors and handlers
      */
     private void initializeExecutors() {
+        inferenceEngine = ((PlantDiseaseApplication) getApplication()).getInferenceEngine();
         cameraExecutor = Executors.newSingleThreadExecutor();
+        analysisExecutor = Executors.newSingleThreadExecutor();
+        decodeExecutor = Executors.newSingleThreadExecutor();
         mainHandler = new Handler(Looper.getMainLooper());
     }
 
@@ -146,7 +198,8 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
      * Initialize database
      */
     private void initializeDatabase() {
-        database = AppDatabase.getInstance(this);
+        scanPersister = ScanPersister.getInstance(this);
+        imageStore = ImageStore.getInstance(this);
     }
 
     /**
@@ -155,6 +208,8 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
     private void setupClickListeners() {
         if (btnBack != null) btnBack.setOnClickListener(this);
         if (btnFlash != null) btnFlash.setOnClickListener(this);
+        if (btnLiveMode != null) btnLiveMode.setOnClickListener(this);
+        if (btnAutoCapture != null) btnAutoCapture.setOnClickListener(this);
         if (btnCloseInstructions != null) btnCloseInstructions.setOnClickListener(this);
         if (btnCapture != null) btnCapture.setOnClickListener(this);
         if (btnGallery != null) btnGallery.setOnClickListener(this);
@@ -171,6 +226,10 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
             finish();
         } else if (id == R.id.btn_flash) {
             toggleFlash();
+        } else if (id == R.id.btn_live_mode) {
+            toggleLiveMode();
+        } else if (id == R.id.btn_auto_capture) {
+            toggleAutoCapture();
         } else if (id == R.id.btn_close_instructions) {
             if (cardInstructions != null) {
                 cardInstructions.setVisibility(View.GONE);
@@ -229,13 +288,29 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
                 .setCaptureMode(ImageCapture.CAPTURE_MODE_MAXIMIZE_QUALITY)
                 .build();
 
+        // Live analysis and auto-capture - only the newest frame is kept while the model is busy
+        imageAnalysis = null;
+        if (isLiveMode || isAutoCapture) {
+            imageAnalysis = new ImageAnalysis.Builder()
+                    .setTargetResolution(LIVE_ANALYSIS_RESOLUTION)
+                    .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                    .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_YUV_420_888)
+                    .build();
+            imageAnalysis.setAnalyzer(analysisExecutor, this::analyzeFrame);
+        }
+
         // Unbind all use cases before rebinding
         cameraProvider.unbindAll();
 
         try {
             // Bind use cases to camera
-            camera = cameraProvider.bindToLifecycle(
-                    this, cameraSelector, preview, imageCapture);
+            if (imageAnalysis != null) {
+                camera = cameraProvider.bindToLifecycle(
+                        this, cameraSelector, preview, imageCapture, imageAnalysis);
+            } else {
+                camera = cameraProvider.bindToLifecycle(
+                        this, cameraSelector, preview, imageCapture);
+            }
 
             // Setup camera controls
             setupCameraControls();
@@ -302,6 +377,183 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
         }
     }
 
+    /**
+     * Turn live preview classification on/off
+     */
+    private void toggleLiveMode() {
+        isLiveMode = !isLiveMode;
+
+        if (btnLiveMode != null) {
+            btnLiveMode.setAlpha(isLiveMode ? 1.0f : 0.6f);
+        }
+        if (tvLivePrediction != null) {
+            tvLivePrediction.setText(R.string.analyzing);
+            tvLivePrediction.setVisibility(isLiveMode || isAutoCapture ? View.VISIBLE : View.GONE);
+        }
+
+        try {
+            bindPreview(cameraProviderFuture.get());
+        } catch (ExecutionException | InterruptedException e) {
+            Log.e(TAG, "Error toggling live mode", e);
+        }
+    }
+
+    /**
+     * Turn auto-capture on/off - a photo is taken once a leaf is steady and sharp in frame
+     */
+    private void toggleAutoCapture() {
+        isAutoCapture = !isAutoCapture;
+        rearmAutoCapture();
+
+        if (btnAutoCapture != null) {
+            btnAutoCapture.setAlpha(isAutoCapture ? 1.0f : 0.6f);
+        }
+        if (tvLivePrediction != null) {
+            tvLivePrediction.setText(AutoCaptureDetector.State.NO_LEAF.hint);
+            tvLivePrediction.setVisibility(isLiveMode || isAutoCapture ? View.VISIBLE : View.GONE);
+        }
+        showToast(isAutoCapture ? "Auto-capture on - hold a leaf steady in the frame" : "Auto-capture off");
+
+        try {
+            bindPreview(cameraProviderFuture.get());
+        } catch (ExecutionException | InterruptedException e) {
+            Log.e(TAG, "Error toggling auto-capture", e);
+        }
+    }
+
+    /**
+     * Allow the next auto-capture, requiring a fresh steady period first
+     */
+    private void rearmAutoCapture() {
+        autoCaptureReset = true;
+        autoCaptureArmed = true;
+    }
+
+    /**
+     * Feed one frame to the auto-capture detector and trigger a capture when ready (analysis thread)
+     */
+    private void checkAutoCapture(@NonNull ImageProxy image) {
+        if (autoCaptureReset) {
+            autoCaptureReset = false;
+            autoCaptureDetector.reset();
+        }
+
+        ImageProxy.PlaneProxy[] planes = image.getPlanes();
+        AutoCaptureDetector.State state = autoCaptureDetector.onFrame(
+                planes[0].getBuffer(), planes[1].getBuffer(), planes[2].getBuffer(),
+                planes[0].getRowStride(), planes[1].getRowStride(), planes[1].getPixelStride(),
+                image.getWidth(), image.getHeight(), SystemClock.elapsedRealtime());
+
+        if (state == AutoCaptureDetector.State.READY) {
+            autoCaptureArmed = false;
+            Log.d(TAG, String.format("Auto-capture: leaf %.2f, motion %.1f, frame skip %d",
+                    autoCaptureDetector.getLeafRatio(), autoCaptureDetector.getMotion(),
+                    autoCaptureDetector.getFrameSkip()));
+            mainHandler.post(() -> {
+                if (isAutoCapture && imageCapture != null && !isFinishing()) {
+                    capturePhoto();
+                } else {
+                    rearmAutoCapture();
+                }
+            });
+        }
+        if (state.hint != null && !isLiveMode) {
+            showLiveHint(state.hint);
+        }
+    }
+
+    /**
+     * Check one preview frame for auto-capture and classify it in live mode (analysis thread)
+     * Blocks until the prediction finishes, so KEEP_ONLY_LATEST drops frames meanwhile.
+     */
+    private void analyzeFrame(@NonNull ImageProxy image) {
+        try {
+            if (isAutoCapture && autoCaptureArmed && isModelLoaded) {
+                checkAutoCapture(image);
+            }
+            if (!isLiveMode || !isModelLoaded) return;
+
+            if (yuvConverter == null) {
+                yuvConverter = new YuvTensorConverter();
+            }
+
+            ImageProxy.PlaneProxy[] planes = image.getPlanes();
+
+            // Blurry or badly exposed frames: coach the user instead of classifying them
+            if (frameQuality == null) {
+                frameQuality = new ImageQuality();
+            }
+            frameQuality.analyzeLuma(planes[0].getBuffer(), image.getWidth(), image.getHeight(),
+                    planes[0].getRowStride(),
+                    ImageQuality.stepFor(image.getWidth(), image.getHeight(), ImageQuality.ANALYSIS_SIZE));
+            if (frameQuality.isUnusable()) {
+                showLiveHint(frameQuality.getIssue().message);
+                return;
+            }
+
+            Tensor inputTensor = yuvConverter.convert(
+                    planes[0].getBuffer(), planes[1].getBuffer(), planes[2].getBuffer(),
+                    planes[0].getRowStride(), planes[1].getRowStride(), planes[1].getPixelStride(),
+                    image.getWidth(), image.getHeight(), image.getImageInfo().getRotationDegrees());
+
+            Future<PlantDiseaseClassifier.PredictionResult> future = inferenceEngine.submitTensor(
+                    InferenceEngine.Priority.LIVE, this, inputTensor,
+                    new InferenceEngine.InferenceCallback() {
+                        @Override
+                        public void onResult(PlantDiseaseClassifier.PredictionResult result,
+                                             InferenceEngine.Timing timing) {
+                            updateLivePrediction(result);
+                        }
+
+                        @Override
+                        public void onError(String error) {
+                            Log.w(TAG, "Live prediction failed: " + error);
+                        }
+                    });
+
+            // The converter's tensor is reused for the next frame
+            future.get();
+        } catch (CancellationException | InterruptedException e) {
+            // Frame superseded or screen closing
+        } catch (Exception e) {
+            Log.w(TAG, "Error analyzing frame", e);
+        } finally {
+            image.close();
+        }
+    }
+
+    /**
+     * Show the running prediction, at most once per LIVE_OVERLAY_INTERVAL_MS
+     */
+    private void updateLivePrediction(PlantDiseaseClassifier.PredictionResult result) {
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastOverlayUpdate < LIVE_OVERLAY_INTERVAL_MS) return;
+        lastOverlayUpdate = now;
+
+        String text = String.format("%s - %s (%.0f%%)",
+                result.plantName, result.diseaseName, result.confidence * 100);
+        mainHandler.post(() -> {
+            if (isLiveMode && tvLivePrediction != null) {
+                tvLivePrediction.setText(text);
+            }
+        });
+    }
+
+    /**
+     * Show guidance in the live overlay in place of a prediction (live mode or auto-capture)
+     */
+    private void showLiveHint(String hint) {
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastOverlayUpdate < LIVE_OVERLAY_INTERVAL_MS) return;
+        lastOverlayUpdate = now;
+
+        mainHandler.post(() -> {
+            if ((isLiveMode || isAutoCapture) && tvLivePrediction != null) {
+                tvLivePrediction.setText(hint);
+            }
+        });
+    }
+
     /**
      * Capture photo and process with AI
      */
@@ -317,6 +569,12 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
             return;
         }
 
+        // Whole-plant tiling region-decodes from a file, so only single-view scans use the in-memory pipeline
+        if (!isTiledAnalysisEnabled()) {
+            captureToPipeline();
+            return;
+        }
+
         // Show progress
         showProgress("Capturing image...");
 
@@ -325,6 +583,7 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
         if (photoFile == null) {
             hideProgress();
             showToast("Failed to create image file");
+            rearmAutoCapture();
             return;
         }
 
@@ -339,7 +598,18 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
                     @Override
                     public void onImageSaved(@NonNull ImageCapture.OutputFileResults output) {
                         Log.d(TAG, "Photo capture succeeded: " + photoFile.getAbsolutePath());
-                        processImage(photoFile.getAbsolutePath());
+                        cameraExecutor.execute(() -> {
+                            try {
+                                processImage(imageStore.adopt(photoFile), false);
+                            } catch (IOException e) {
+                                Log.e(TAG, "Error storing captured photo", e);
+                                mainHandler.post(() -> {
+                                    hideProgress();
+                                    showToast("Failed to save photo");
+                                    rearmAutoCapture();
+                                });
+                            }
+                        });
                     }
 
                     @Override
@@ -347,66 +617,209 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
                         Log.e(TAG, "Photo capture failed: " + exception.getMessage(), exception);
                         hideProgress();
                         showToast("Photo capture failed");
+                        rearmAutoCapture();
                     }
                 }
         );
     }
 
+    /**
+     * Capture into memory and hand the photo through the staged pipeline:
+     * decode on decodeExecutor, inference on the shared engine, then JPEG write and
+     * database insert on ScanPersister. The camera is free for the next shot as soon
+     * as the frame is copied, so rapid captures overlap instead of queuing behind disk I/O.
+     */
+    private void captureToPipeline() {
+        if (capturesInFlight.get() >= MAX_CAPTURES_IN_FLIGHT) {
+            showToast("Still analyzing previous photos - please wait");
+            rearmAutoCapture();
+            return;
+        }
+        capturesInFlight.incrementAndGet();
+        long captureStart = SystemClock.elapsedRealtime();
+        showProgress("Capturing image...");
+
+        imageCapture.takePicture(decodeExecutor, new ImageCapture.OnImageCapturedCallback() {
+            @Override
+            public void onCaptureSuccess(@NonNull ImageProxy image) {
+                byte[] jpeg;
+                int rotationDegrees;
+                try {
+                    ByteBuffer buffer = image.getPlanes()[0].getBuffer();
+                    jpeg = new byte[buffer.remaining()];
+                    buffer.get(jpeg);
+                    rotationDegrees = image.getImageInfo().getRotationDegrees();
+                } finally {
+                    image.close();
+                }
+
+                // Frame is in memory - allow the next capture while this one is analyzed
+                showProgress("Analyzing image...");
+                mainHandler.post(() -> {
+                    if (btnCapture != null) btnCapture.setEnabled(true);
+                });
+                decodeAndSubmit(jpeg, rotationDegrees, captureStart);
+            }
+
+            @Override
+            public void onError(@NonNull ImageCaptureException exception) {
+                Log.e(TAG, "Photo capture failed: " + exception.getMessage(), exception);
+                onCaptureFailed("Photo capture failed");
+            }
+        });
+    }
+
+    /**
+     * Decode stage: inference bitmap from the in-memory JPEG, then queue it for inference
+     */
+    private void decodeAndSubmit(byte[] jpeg, int rotationDegrees, long captureStart) {
+        long decodeStart = System.nanoTime();
+        Bitmap bitmap = ImageUtils.loadInferenceBitmap(jpeg, rotationDegrees, ImagePreprocessor.INPUT_SIZE);
+        InferenceMetrics.getInstance().recordNanos(InferenceMetrics.Stage.DECODE, System.nanoTime() - decodeStart);
+        if (bitmap == null) {
+            onCaptureFailed("Failed to load image");
+            return;
+        }
+
+        inferenceEngine.submitBitmap(InferenceEngine.Priority.CAPTURE, this, bitmap,
+                new InferenceEngine.InferenceCallback() {
+                    @Override
+                    public void onResult(PlantDiseaseClassifier.PredictionResult result,
+                                         InferenceEngine.Timing timing) {
+                        Log.d(TAG, "Processed in-memory capture - " + timing);
+                        persistCapture(result, jpeg, SystemClock.elapsedRealtime() - captureStart);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        Log.e(TAG, "AI prediction failed: " + error);
+                        onCaptureFailed(error);
+                    }
+
+                    @Override
+                    public void onRejected(ImageRejectedException rejection) {
+                        Log.i(TAG, "Image rejected before analysis: " + rejection.getMessage());
+                        capturesInFlight.decrementAndGet();
+                        mainHandler.post(() -> {
+                            hideProgress();
+                            showRejectedDialog(rejection);
+                        });
+                    }
+                });
+    }
+
+    /**
+     * Hand a finished capture to the persistence stage (inference thread). The newest
+     * capture opens the results screen right away; earlier ones of a burst go to history.
+     */
+    private void persistCapture(PlantDiseaseClassifier.PredictionResult result, byte[] jpeg,
+                                long processingTimeMs) {
+        // The image path is set once ScanPersister has stored the JPEG
+        ScanResult scanResult = createScanResult(null, result);
+        scanResult.setProcessingTimeMs(processingTimeMs);
+        try {
+            ScanPersister.PendingScan pending = scanPersister.persist(scanResult, jpeg);
+            boolean newest = capturesInFlight.decrementAndGet() == 0;
+            mainHandler.post(() -> {
+                if (newest) {
+                    hideProgress();
+                    openResults(pending);
+                } else {
+                    showToast("Scan saved to history");
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            onCaptureFailed("Failed to save scan result");
+        }
+    }
+
+    /**
+     * End an in-memory capture that produced no result
+     */
+    private void onCaptureFailed(String message) {
+        capturesInFlight.decrementAndGet();
+        mainHandler.post(() -> {
+            hideProgress();
+            showToast(message);
+            rearmAutoCapture();
+        });
+    }
+
+    private boolean isTiledAnalysisEnabled() {
+        return getSharedPreferences(SettingsActivity.PREFS_NAME, Context.MODE_PRIVATE)
+                .getBoolean(SettingsActivity.PREF_TILED_ANALYSIS, false);
+    }
+
     /**
      * Open gallery to select image
      */
     private void openGallery() {
         Intent intent = new Intent(Intent.ACTION_PICK, MediaStore.Images.Media.EXTERNAL_CONTENT_URI);
         intent.setType("image/*");
+        intent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true); // Several photos of one plant
         startActivityForResult(intent, GALLERY_REQUEST_CODE);
     }
 
     /**
-     * Load AI model in background
+     * Get the shared AI model, loading it in the background if needed
      */
     private void loadAIModel() {
-        showLoadingOverlay("Loading MOCK AI model...");
-        updateAIStatus("Loading...", false);
+        ModelManager modelManager = ((PlantDiseaseApplication) getApplication()).getModelManager();
+        if (modelManager == null) {
+            updateAIStatus("Model Error", false);
+            return;
+        }
 
-        cameraExecutor.execute(() -> {
-            try {
-                plantClassifier = new PlantDiseaseClassifier(this);
-                boolean loaded = plantClassifier.loadModel();
+        // Usually already warmed up by the application - only show loading UI otherwise
+        if (!modelManager.isReady()) {
+            showLoadingOverlay("Loading AI model...");
+            updateAIStatus("Loading...", false);
+        }
 
+        modelManager.getModel(new ModelManager.ModelCallback() {
+            @Override
+            public void onModelReady(PlantDiseaseClassifier classifier) {
                 mainHandler.post(() -> {
+                    plantClassifier = classifier;
+                    isModelLoaded = true;
                     hideLoadingOverlay();
-                    if (loaded) {
-                        isModelLoaded = true;
-                        updateAIStatus("AI Model Ready", true);
-                        showToast("PyTorch model loaded successfully!");
-                        Log.i(TAG, "PyTorch model successfully loaded and ready for predictions");
-                        
-                        Log.i(TAG, "Model loaded successfully and ready for use");
-                    } else {
-                        isModelLoaded = false;
-                        updateAIStatus("Model Failed", false);
-                        showToast("Failed to load PyTorch model - check model file");
-                        Log.e(TAG, "Failed to load the PyTorch model from assets");
-                    }
+                    updateAIStatus("AI Model Ready", true);
+                    Log.i(TAG, "PyTorch model ready for predictions");
                 });
+            }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading PyTorch model", e);
+            @Override
+            public void onModelError(String error) {
                 mainHandler.post(() -> {
                     isModelLoaded = false;
                     hideLoadingOverlay();
-                    updateAIStatus("Model Error", false);
-                    showToast("PyTorch model loading error: " + e.getMessage());
+                    updateAIStatus("Model Failed", false);
+                    showToast(error);
+                    Log.e(TAG, "Failed to load the PyTorch model: " + error);
                 });
             }
         });
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        rearmAutoCapture();
+
+        // The shared model may have been unloaded under memory pressure while we were away
+        if (isModelLoaded && (plantClassifier == null || !plantClassifier.isModelLoaded())) {
+            isModelLoaded = false;
+            loadAIModel();
+        }
+    }
+
     /**
      * FIXED: Process captured image with proper background handling
      */
-    private void processImage(String imagePath) {
+    private void processImage(String imagePath, boolean leafFocused) {
         if (!isModelLoaded || plantClassifier == null) {
+            imageStore.settle(imagePath);
             hideProgress();
             showToast("PyTorch model not loaded - cannot analyze image");
             Log.e(TAG, "Attempted to process image without loaded PyTorch model");
@@ -415,61 +828,82 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
 
         showProgress("Analyzing image...");
 
-        cameraExecutor.execute(() -> {
-            try {
-                // Load and validate image
-                Bitmap bitmap = BitmapFactory.decodeFile(imagePath);
-                if (bitmap == null) {
-                    mainHandler.post(() -> {
-                        hideProgress();
-                        showToast("Failed to load image");
-                    });
-                    return;
-                }
-
-                Log.d(TAG, "Processing image: " + imagePath + " (" + bitmap.getWidth() + "x" + bitmap.getHeight() + ")");
-
-                // Classify with AI model
-                PlantDiseaseClassifier.PredictionResult result = plantClassifier.predict(bitmap);
-
-                if (result != null) {
-                    // Create and save scan result
-                    ScanResult scanResult = createScanResult(imagePath, result);
-
-                    try {
-                        long scanId = database.scanResultDao().insertScanResult(scanResult);
-                        scanResult.setId((int) scanId);
+        InferenceEngine.BitmapSource source = () ->
+                ImageUtils.loadInferenceBitmap(imagePath, ImagePreprocessor.INPUT_SIZE, leafFocused, false);
+        InferenceEngine.InferenceCallback callback = new InferenceEngine.InferenceCallback() {
+            @Override
+            public void onResult(PlantDiseaseClassifier.PredictionResult result,
+                                 InferenceEngine.Timing timing) {
+                Log.d(TAG, "Processed image: " + imagePath + " - " + timing);
+                saveScanResult(imagePath, result, timing.totalMs);
+            }
 
-                        mainHandler.post(() -> {
-                            hideProgress();
-                            openResults(scanResult);
-                        });
-                    } catch (Exception dbError) {
-                        Log.e(TAG, "Database error when saving scan result", dbError);
-                        mainHandler.post(() -> {
-                            hideProgress();
-                            showToast("Failed to save scan result");
-                        });
-                    }
-                } else {
-                    Log.e(TAG, "AI prediction failed");
-                    mainHandler.post(() -> {
-                        hideProgress();
-                        showToast("AI analysis failed - please try again");
-                    });
-                }
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "AI prediction failed: " + error);
+                imageStore.settle(imagePath); // No scan will reference the stored photo
+                mainHandler.post(() -> {
+                    hideProgress();
+                    showToast(error);
+                    rearmAutoCapture();
+                });
+            }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Error processing image", e);
+            @Override
+            public void onRejected(ImageRejectedException rejection) {
+                Log.i(TAG, "Image rejected before analysis: " + rejection.getMessage());
+                imageStore.settle(imagePath);
                 mainHandler.post(() -> {
                     hideProgress();
-                    showToast("Image processing error");
+                    showRejectedDialog(rejection);
                 });
             }
-        });
+        };
+
+        // Whole-plant mode: overlapping tiles catch lesions a single 224px view would squash
+        if (isTiledAnalysisEnabled()) {
+            inferenceEngine.submitTiled(InferenceEngine.Priority.CAPTURE, this, imagePath, source, callback);
+        } else {
+            inferenceEngine.submit(InferenceEngine.Priority.CAPTURE, this, source, callback);
+        }
     }
 
+    /**
+     * Explain why a photo was not analyzed - nothing is saved for it
+     */
+    private void showRejectedDialog(ImageRejectedException rejection) {
+        if (isFinishing() || isDestroyed()) return;
+
+        new AlertDialog.Builder(this)
+                .setTitle(rejection.isQualityRejection() ? "Photo quality too low" : "No plant detected")
+                .setMessage(rejection.getMessage())
+                .setPositiveButton("Retake", null)
+                .setOnDismissListener(dialog -> rearmAutoCapture())
+                .show();
+    }
 
+    /**
+     * Queue the scan for saving and open the results screen without waiting for the insert
+     */
+    private void saveScanResult(String imagePath, PlantDiseaseClassifier.PredictionResult result,
+                                long processingTimeMs) {
+        ScanResult scanResult = createScanResult(imagePath, result);
+        scanResult.setProcessingTimeMs(processingTimeMs);
+        try {
+            ScanPersister.PendingScan pending = scanPersister.persist(scanResult, null);
+            mainHandler.post(() -> {
+                hideProgress();
+                openResults(pending);
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            imageStore.settle(imagePath);
+            mainHandler.post(() -> {
+                hideProgress();
+                showToast("Failed to save scan result");
+            });
+        }
+    }
 
     /**
      * Create ScanResult from prediction result
@@ -480,11 +914,25 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
         // Set basic fields
         scanResult.setImagePath(imagePath != null ? imagePath : "");
         scanResult.setPredictedClass(result.className);
-        scanResult.setPredictedIndex(0); // Not needed for minimal implementation
+        scanResult.setPredictedIndex(result.classIndex);
         scanResult.setConfidence(result.confidence);
         scanResult.setPlantName(result.plantName);
         scanResult.setDiseaseName(result.diseaseName);
         scanResult.setHealthy(result.isHealthy);
+        scanResult.setTopPredictions(result.encodeTopPredictions());
+        scanResult.setTopMargin(result.margin);
+        if (result.entropy >= 0f) {
+            scanResult.setEntropy(result.entropy);
+        }
+        if (result.getQualityScore() >= 0f) {
+            scanResult.setQualityScore(result.getQualityScore());
+            if (result.getQualityIssue() != ImageQuality.Issue.NONE) {
+                scanResult.setQualityIssue(result.getQualityIssue().name());
+            }
+        }
+        if (result instanceof PlantDiseaseClassifier.TiledPredictionResult) {
+            scanResult.setLesionHeatmap(((PlantDiseaseClassifier.TiledPredictionResult) result).heatmap.encode());
+        }
 
         Log.d(TAG, "Created ScanResult: " + scanResult.toString());
         return scanResult;
@@ -495,10 +943,10 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
     /**
      * Open results activity
      */
-    private void openResults(ScanResult scanResult) {
+    private void openResults(ScanPersister.PendingScan pending) {
         try {
             Intent intent = new Intent(this, ResultsActivity.class);
-            intent.putExtra("scan_result_id", scanResult.getId());
+            intent.putExtra(ResultsActivity.EXTRA_PENDING_SCAN, pending.token);
             startActivity(intent);
             finish(); // Close camera activity
         } catch (Exception e) {
@@ -515,7 +963,24 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
         super.onActivityResult(requestCode, resultCode, data);
 
         if (requestCode == GALLERY_REQUEST_CODE && resultCode == RESULT_OK && data != null) {
+            ClipData clipData = data.getClipData();
+            if (clipData != null && clipData.getItemCount() > 1) {
+                int count = Math.min(clipData.getItemCount(), MAX_GALLERY_BATCH);
+                if (clipData.getItemCount() > count) {
+                    showToast("Analyzing the first " + count + " photos");
+                }
+                List<Uri> imageUris = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    imageUris.add(clipData.getItemAt(i).getUri());
+                }
+                processGalleryImages(imageUris);
+                return;
+            }
+
             Uri selectedImageUri = data.getData();
+            if (selectedImageUri == null && clipData != null && clipData.getItemCount() == 1) {
+                selectedImageUri = clipData.getItemAt(0).getUri();
+            }
             if (selectedImageUri != null) {
                 processGalleryImage(selectedImageUri);
             }
@@ -539,7 +1004,7 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
                 // Copy image to app directory
                 String imagePath = saveGalleryImage(imageUri);
                 if (imagePath != null) {
-                    processImage(imagePath); // This will now handle background detection properly
+                    processImage(imagePath, true); // Gallery photos are not framed by the focus circle
                 } else {
                     mainHandler.post(() -> {
                         hideProgress();
@@ -557,27 +1022,113 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
     }
 
     /**
-     * Save gallery image to app directory
+     * Analyze several gallery photos of one plant together and save a single scan with
+     * the combined verdict. The first photo is stored as the scan's image; the others
+     * are only needed for inference and go to temporary files.
      */
-    private String saveGalleryImage(Uri imageUri) {
-        try {
-            InputStream inputStream = getContentResolver().openInputStream(imageUri);
-            if (inputStream == null) return null;
+    private void processGalleryImages(List<Uri> imageUris) {
+        if (!isModelLoaded) {
+            showToast("PyTorch model not ready - cannot process gallery images");
+            return;
+        }
+
+        showProgress("Analyzing " + imageUris.size() + " photos...");
+
+        cameraExecutor.execute(() -> {
+            List<File> tempFiles = new ArrayList<>();
+            String imagePath = saveGalleryImage(imageUris.get(0));
+            try {
+                if (imagePath == null) {
+                    throw new IOException("Failed to save gallery image");
+                }
+                List<String> paths = new ArrayList<>(imageUris.size());
+                paths.add(imagePath);
+                for (int i = 1; i < imageUris.size(); i++) {
+                    File tempFile = copyToCache(imageUris.get(i));
+                    if (tempFile != null) {
+                        tempFiles.add(tempFile);
+                        paths.add(tempFile.getAbsolutePath());
+                    }
+                }
+
+                List<InferenceEngine.BitmapSource> sources = new ArrayList<>(paths.size());
+                for (String path : paths) {
+                    sources.add(() -> ImageUtils.loadInferenceBitmap(path, ImagePreprocessor.INPUT_SIZE, true, false));
+                }
 
-            File outputFile = ImageUtils.createImageFile(this);
-            if (outputFile == null) return null;
+                inferenceEngine.submitBatch(InferenceEngine.Priority.CAPTURE, this, sources,
+                        new InferenceEngine.InferenceCallback() {
+                            @Override
+                            public void onResult(PlantDiseaseClassifier.PredictionResult result,
+                                                 InferenceEngine.Timing timing) {
+                                deleteFiles(tempFiles);
+                                Log.d(TAG, "Processed " + paths.size() + " gallery images - " + timing);
+                                saveScanResult(imagePath, result, timing.totalMs);
+                            }
+
+                            @Override
+                            public void onError(String error) {
+                                Log.e(TAG, "Batch prediction failed: " + error);
+                                deleteFiles(tempFiles);
+                                imageStore.settle(imagePath);
+                                mainHandler.post(() -> {
+                                    hideProgress();
+                                    showToast(error);
+                                });
+                            }
+                        });
+            } catch (Exception e) {
+                Log.e(TAG, "Error processing gallery images", e);
+                deleteFiles(tempFiles);
+                imageStore.settle(imagePath);
+                mainHandler.post(() -> {
+                    hideProgress();
+                    showToast("Gallery image processing error");
+                });
+            }
+        });
+    }
 
-            FileOutputStream outputStream = new FileOutputStream(outputFile);
-            byte[] buffer = new byte[1024];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
+    /**
+     * Copy a gallery photo to a temporary file for decoding, or null on failure
+     */
+    private File copyToCache(Uri imageUri) {
+        File tempFile = null;
+        try (InputStream inputStream = getContentResolver().openInputStream(imageUri)) {
+            if (inputStream == null) return null;
+
+            tempFile = File.createTempFile("batch_", ".jpg", getCacheDir());
+            try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+                byte[] buffer = new byte[8192];
+                int bytesRead;
+                while ((bytesRead = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, bytesRead);
+                }
             }
+            return tempFile;
+        } catch (IOException e) {
+            Log.e(TAG, "Error copying gallery image", e);
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            return null;
+        }
+    }
+
+    private static void deleteFiles(List<File> files) {
+        for (File file : files) {
+            file.delete();
+        }
+    }
 
-            inputStream.close();
-            outputStream.close();
+    /**
+     * Save gallery image to the image store - a photo imported before is not copied again
+     */
+    private String saveGalleryImage(Uri imageUri) {
+        try (InputStream inputStream = getContentResolver().openInputStream(imageUri)) {
+            if (inputStream == null) return null;
 
-            return outputFile.getAbsolutePath();
+            return imageStore.store(inputStream);
 
         } catch (IOException e) {
             Log.e(TAG, "Error saving gallery image", e);
@@ -730,12 +1281,22 @@ public class CameraActivity extends AppCompatActivity implements View.OnClickLis
     protected void onDestroy() {
         super.onDestroy();
         try {
+            // Drop queued analysis for this screen
+            isLiveMode = false;
+            if (inferenceEngine != null) {
+                inferenceEngine.cancel(this);
+            }
             if (cameraExecutor != null) {
                 cameraExecutor.shutdown();
             }
-            if (plantClassifier != null) {
-                plantClassifier.release();
+            if (analysisExecutor != null) {
+                analysisExecutor.shutdown();
+            }
+            if (decodeExecutor != null) {
+                decodeExecutor.shutdown();
             }
+            // The classifier is shared process-wide - ModelManager owns its lifecycle
+            plantClassifier = null;
         } catch (Exception e) {
             Log.w(TAG, "Error in onDestroy", e);
         }
@@ -22,6 +22,7 @@ import com.google.android.material.textfield.TextInputEditText;
 import com.plantcare.diseasedetector.R;
 import com.plantcare.diseasedetector.data.database.AppDatabase;
 import com.plantcare.diseasedetector.data.models.ScanResult;
+import com.plantcare.diseasedetector.data.repository.ImageStore;
 import com.plantcare.diseasedetector.ui.base.BaseActivity;
 import com.plantcare.diseasedetector.ui.camera.CameraActivity;
 import com.plantcare.diseasedetector.ui.results.ResultsActivity;
@@ -55,7 +56,7 @@ public class HistoryActivity extends BaseActivity implements View.OnClickListene
 
     // Filter and Sort Components
     private ChipGroup chipGroupFilters, chipGroupSort;
-    private Chip chipHealthy, chipDiseased, chipThisWeek, chipThisMonth, chipHighConfidence;
+    private Chip chipHealthy, chipDiseased, chipThisWeek, chipThisMonth, chipHighConfidence, chipNeedsReview, chipLowQuality;
     private Chip chipSortDate, chipSortConfidence, chipSortPlant;
 
     // Data
@@ -135,6 +136,8 @@ public class HistoryActivity extends BaseActivity implements View.OnClickListene
             chipThisWeek = findViewById(R.id.chip_this_week);
             chipThisMonth = findViewById(R.id.chip_this_month);
             chipHighConfidence = findViewById(R.id.chip_high_confidence);
+            chipNeedsReview = findViewById(R.id.chip_needs_review);
+            chipLowQuality = findViewById(R.id.chip_low_quality);
 
             // Sort chips
             chipGroupSort = findViewById(R.id.chip_group_sort);
@@ -396,6 +399,8 @@ public class HistoryActivity extends BaseActivity implements View.OnClickListene
 
             // Confidence filter
             if (chipHighConfidence != null && chipHighConfidence.isChecked() && scan.getConfidence() < 0.8f) return false;
+            if (chipNeedsReview != null && chipNeedsReview.isChecked() && !scan.needsReview()) return false;
+            if (chipLowQuality != null && chipLowQuality.isChecked() && !scan.isLowQuality()) return false;
 
             return true;
         } catch (Exception e) {
@@ -837,17 +842,8 @@ public class HistoryActivity extends BaseActivity implements View.OnClickListene
             databaseExecutor.execute(() -> {
                 try {
                     database.scanResultDao().deleteScanResult(scanResult);
-
-                    if (scanResult.getImagePath() != null && !scanResult.getImagePath().isEmpty()) {
-                        try {
-                            java.io.File imageFile = new java.io.File(scanResult.getImagePath());
-                            if (imageFile.exists()) {
-                                imageFile.delete();
-                            }
-                        } catch (Exception e) {
-                            android.util.Log.w(TAG, "Could not delete image file", e);
-                        }
-                    }
+                    // Keeps the photo if another scan of it remains
+                    ImageStore.getInstance(this).release(scanResult);
 
                     runOnUiThreadSafely(() -> {
                         if (allScanResults != null) {
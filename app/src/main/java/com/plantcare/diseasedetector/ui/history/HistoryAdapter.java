@@ -1,7 +1,6 @@
 package com.plantcare.diseasedetector.ui.history;
 
 import android.content.Context;
-import android.graphics.Bitmap;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -17,11 +16,10 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.plantcare.diseasedetector.R;
 import com.plantcare.diseasedetector.data.models.ScanResult;
 import com.plantcare.diseasedetector.utils.DateUtils;
-import com.plantcare.diseasedetector.utils.ImageUtils;
+import com.plantcare.diseasedetector.utils.ImageRequestManager;
+import com.plantcare.diseasedetector.utils.ThumbnailCache;
 
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Adapter for displaying scan history in both list and grid view modes
@@ -36,13 +34,13 @@ public class HistoryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     private List<ScanResult> scanResults;
     private boolean isGridView;
     private OnItemClickListener listener;
-    private ExecutorService imageExecutor;
+    private final ImageRequestManager imageRequests;
 
     public HistoryAdapter(Context context, List<ScanResult> scanResults, boolean isGridView) {
         this.context = context;
         this.scanResults = scanResults;
         this.isGridView = isGridView;
-        this.imageExecutor = Executors.newFixedThreadPool(3); // For loading images
+        this.imageRequests = ImageRequestManager.getInstance(context);
     }
 
     /**
@@ -102,6 +100,33 @@ public class HistoryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         return scanResults.size();
     }
 
+    @Override
+    public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewRecycled(holder);
+        ImageView image = getPlantImage(holder);
+        if (image != null) imageRequests.cancel(image);
+    }
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewAttachedToWindow(holder);
+        ImageView image = getPlantImage(holder);
+        if (image != null) imageRequests.setVisible(image, true);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewDetachedFromWindow(holder);
+        ImageView image = getPlantImage(holder);
+        if (image != null) imageRequests.setVisible(image, false);
+    }
+
+    private ImageView getPlantImage(RecyclerView.ViewHolder holder) {
+        if (holder instanceof ListViewHolder) return ((ListViewHolder) holder).ivPlantImage;
+        if (holder instanceof GridViewHolder) return ((GridViewHolder) holder).ivPlantImage;
+        return null;
+    }
+
     /**
      * List view holder for detailed scan information
      */
@@ -158,19 +183,7 @@ public class HistoryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         }
 
         private void loadPlantImage(ScanResult scanResult) {
-            // Set placeholder first
-            ivPlantImage.setImageResource(R.drawable.placeholder_plant);
-
-            if (scanResult.getImagePath() != null && !scanResult.getImagePath().isEmpty()) {
-                imageExecutor.execute(() -> {
-                    Bitmap thumbnail = ImageUtils.createThumbnail(scanResult.getImagePath(), 200);
-
-                    if (thumbnail != null) {
-                        // Update UI on main thread
-                        itemView.post(() -> ivPlantImage.setImageBitmap(thumbnail));
-                    }
-                });
-            }
+            imageRequests.load(ivPlantImage, scanResult, ThumbnailCache.SIZE_MEDIUM);
         }
 
         private void setHealthStatus(ScanResult scanResult) {
@@ -311,19 +324,7 @@ public class HistoryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         }
 
         private void loadPlantImage(ScanResult scanResult) {
-            // Set placeholder first
-            ivPlantImage.setImageResource(R.drawable.placeholder_plant);
-
-            if (scanResult.getImagePath() != null && !scanResult.getImagePath().isEmpty()) {
-                imageExecutor.execute(() -> {
-                    Bitmap thumbnail = ImageUtils.createThumbnail(scanResult.getImagePath(), 150);
-
-                    if (thumbnail != null) {
-                        // Update UI on main thread
-                        itemView.post(() -> ivPlantImage.setImageBitmap(thumbnail));
-                    }
-                });
-            }
+            imageRequests.load(ivPlantImage, scanResult, ThumbnailCache.SIZE_SMALL);
         }
 
         private void setScanDate(ScanResult scanResult) {
@@ -453,19 +454,4 @@ public class HistoryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         }
         return total / scanResults.size();
     }
-
-    /**
-     * Release resources
-     */
-    public void release() {
-        if (imageExecutor != null && !imageExecutor.isShutdown()) {
-            imageExecutor.shutdown();
-        }
-    }
-
-    @Override
-    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
-        super.onDetachedFromRecyclerView(recyclerView);
-        release();
-    }
 }
\ No newline at end of file
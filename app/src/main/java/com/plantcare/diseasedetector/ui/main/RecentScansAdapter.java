@@ -1,8 +1,6 @@
 package com.plantcare.diseasedetector.ui.main;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -16,8 +14,9 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.plantcare.diseasedetector.R;
 import com.plantcare.diseasedetector.data.models.ScanResult;
 import com.plantcare.diseasedetector.utils.DateUtils;
+import com.plantcare.diseasedetector.utils.ImageRequestManager;
+import com.plantcare.diseasedetector.utils.ThumbnailCache;
 
-import java.io.File;
 import java.util.List;
 
 /**
@@ -29,6 +28,7 @@ public class RecentScansAdapter extends RecyclerView.Adapter<RecentScansAdapter.
     private Context context;
     private List<ScanResult> scanResults;
     private OnItemClickListener onItemClickListener;
+    private final ImageRequestManager imageRequests;
 
     /**
      * Interface for handling item click events
@@ -43,6 +43,7 @@ public class RecentScansAdapter extends RecyclerView.Adapter<RecentScansAdapter.
     public RecentScansAdapter(Context context, List<ScanResult> scanResults) {
         this.context = context;
         this.scanResults = scanResults;
+        this.imageRequests = ImageRequestManager.getInstance(context);
     }
 
     /**
@@ -70,6 +71,24 @@ public class RecentScansAdapter extends RecyclerView.Adapter<RecentScansAdapter.
         return scanResults != null ? scanResults.size() : 0;
     }
 
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        super.onViewRecycled(holder);
+        imageRequests.cancel(holder.ivPlantImage);
+    }
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull ViewHolder holder) {
+        super.onViewAttachedToWindow(holder);
+        imageRequests.setVisible(holder.ivPlantImage, true);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(@NonNull ViewHolder holder) {
+        super.onViewDetachedFromWindow(holder);
+        imageRequests.setVisible(holder.ivPlantImage, false);
+    }
+
     /**
      * ViewHolder class for recent scan items
      */
@@ -121,7 +140,7 @@ public class RecentScansAdapter extends RecyclerView.Adapter<RecentScansAdapter.
          */
         public void bind(ScanResult scanResult) {
             // Set plant image
-            loadPlantImage(scanResult.getImagePath());
+            imageRequests.load(ivPlantImage, scanResult, ThumbnailCache.SIZE_MEDIUM);
 
             // Set plant name (extract from predicted class)
             String plantName = extractPlantName(scanResult.getPredictedClass());
@@ -139,43 +158,6 @@ public class RecentScansAdapter extends RecyclerView.Adapter<RecentScansAdapter.
             tvScanDate.setText(timeAgo);
         }
 
-        /**
-         * Load plant image from file path
-         */
-        private void loadPlantImage(String imagePath) {
-            if (imagePath != null && !imagePath.isEmpty()) {
-                try {
-                    File imageFile = new File(imagePath);
-                    if (imageFile.exists()) {
-                        // Load image efficiently
-                        BitmapFactory.Options options = new BitmapFactory.Options();
-                        options.inSampleSize = 4; // Scale down to reduce memory usage
-                        Bitmap bitmap = BitmapFactory.decodeFile(imagePath, options);
-
-                        if (bitmap != null) {
-                            ivPlantImage.setImageBitmap(bitmap);
-                        } else {
-                            setDefaultImage();
-                        }
-                    } else {
-                        setDefaultImage();
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    setDefaultImage();
-                }
-            } else {
-                setDefaultImage();
-            }
-        }
-
-        /**
-         * Set default placeholder image
-         */
-        private void setDefaultImage() {
-            ivPlantImage.setImageResource(R.drawable.placeholder_plant);
-        }
-
         /**
          * Extract plant name from predicted class
          * Example: "Apple___Apple_scab" -> "Apple"
@@ -27,6 +27,10 @@ import com.plantcare.diseasedetector.MainActivity;
 import com.plantcare.diseasedetector.R;
 import com.plantcare.diseasedetector.data.database.AppDatabase;
 import com.plantcare.diseasedetector.data.models.ScanResult;
+import com.plantcare.diseasedetector.data.repository.ScanPersister;
+import com.plantcare.diseasedetector.ml.PlantDiseaseClassifier;
+import com.plantcare.diseasedetector.ml.core.LesionHeatmap;
+import com.plantcare.diseasedetector.ml.core.TopKSelector;
 import com.plantcare.diseasedetector.ui.camera.CameraActivity;
 import com.plantcare.diseasedetector.ui.history.HistoryActivity;
 import com.plantcare.diseasedetector.utils.DateUtils;
@@ -42,6 +46,7 @@ import java.util.concurrent.Executors;
 public class ResultsActivity extends AppCompatActivity implements View.OnClickListener {
 
     private static final String TAG = "ResultsActivity";
+    private static final int MAX_TOP_PREDICTIONS = 3;
 
     // UI Components
     private MaterialToolbar toolbar;
@@ -62,9 +67,13 @@ public class ResultsActivity extends AppCompatActivity implements View.OnClickLi
     private AppDatabase database;
     private TopPredictionsAdapter topPredictionsAdapter;
     private ExecutorService executor;
+    private ScanPersister.PendingScan pendingScan; // Set while the scan may still be saving
+
+    private static final long PENDING_TIMEOUT_MS = 10000;
 
     // Intent Extra Keys
     public static final String EXTRA_SCAN_RESULT_ID = "scan_result_id";
+    public static final String EXTRA_PENDING_SCAN = "pending_scan_token";
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -163,6 +172,13 @@ public class ResultsActivity extends AppCompatActivity implements View.OnClickLi
      * Load scan result from database
      */
     private void loadScanResult() {
+        long token = getIntent().getLongExtra(EXTRA_PENDING_SCAN, -1);
+        pendingScan = token != -1 ? ScanPersister.getInstance(this).get(token) : null;
+        if (pendingScan != null) {
+            showPendingScan();
+            return;
+        }
+
         int scanResultId = getIntent().getIntExtra(EXTRA_SCAN_RESULT_ID, -1);
         if (scanResultId == -1) {
             showToast("Invalid scan result");
@@ -184,6 +200,34 @@ public class ResultsActivity extends AppCompatActivity implements View.OnClickLi
         });
     }
 
+    /**
+     * Show a scan straight from inference while ScanPersister writes it,
+     * then switch the intent to the saved row so recreation reloads from the database
+     */
+    private void showPendingScan() {
+        scanResult = pendingScan.getScanResult();
+        displayResults();
+
+        ScanPersister.PendingScan pending = pendingScan;
+        executor.execute(() -> {
+            int savedId;
+            try {
+                savedId = pending.awaitSaved(PENDING_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            runOnUiThread(() -> {
+                if (savedId != -1) {
+                    getIntent().removeExtra(EXTRA_PENDING_SCAN);
+                    getIntent().putExtra(EXTRA_SCAN_RESULT_ID, savedId);
+                } else {
+                    showToast("Failed to save scan to history");
+                }
+            });
+        });
+    }
+
     /**
      * Display the scan results in UI
      */
@@ -214,8 +258,21 @@ public class ResultsActivity extends AppCompatActivity implements View.OnClickLi
      * Load and display plant image
      */
     private void loadPlantImage() {
-        if (scanResult.getImagePath() != null && !scanResult.getImagePath().isEmpty()) {
+        ScanPersister.PendingScan pending = pendingScan;
+        // A just-captured photo only gets its path once stored, so check that after waiting
+        if (pending != null || (scanResult.getImagePath() != null && !scanResult.getImagePath().isEmpty())) {
             executor.execute(() -> {
+                // A just-captured photo may still be being written
+                if (pending != null) {
+                    try {
+                        if (!pending.awaitImage(PENDING_TIMEOUT_MS)) {
+                            runOnUiThread(() -> ivPlantImage.setImageResource(R.drawable.placeholder_plant));
+                            return;
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
                 Bitmap bitmap = ImageUtils.getDisplayBitmap(scanResult.getImagePath());
 
                 runOnUiThread(() -> {
@@ -298,8 +355,19 @@ public class ResultsActivity extends AppCompatActivity implements View.OnClickLi
         // Set confidence badge
         tvConfidenceBadge.setText(confidencePercent + "%");
 
-        // Set confidence detail
-        tvConfidenceDetail.setText(String.format("Confidence: %.1f%%", confidence * 100));
+        // Set confidence detail, warning when a blurry or badly exposed photo may have misled the model
+        String detail = String.format("Confidence: %.1f%%", confidence * 100);
+        if (scanResult.isLowQuality()) {
+            detail += "\nLow photo quality - consider retaking for a reliable result";
+        }
+
+        // Tiled scans: how much of the plant the disease has spread to
+        LesionHeatmap heatmap = LesionHeatmap.decode(scanResult.getLesionHeatmap());
+        if (heatmap != null && !scanResult.isHealthy()) {
+            detail += String.format("\nLesions in %d%% of the plant",
+                    Math.round(heatmap.getCoverage(LesionHeatmap.LESION_THRESHOLD) * 100));
+        }
+        tvConfidenceDetail.setText(detail);
 
         // Set progress bar
         progressConfidence.setProgress(confidencePercent);
@@ -384,66 +452,46 @@ public class ResultsActivity extends AppCompatActivity implements View.OnClickLi
      * Load top predictions for the RecyclerView
      */
     private void loadTopPredictions() {
-        // Create mock top predictions based on confidence
-        // In a real implementation, you would get this from the ML model
+        // Stored top-K model output - no need to re-run inference when a scan is reopened
         TopPrediction[] topPredictions = createTopPredictions();
         topPredictionsAdapter.updatePredictions(topPredictions);
     }
 
     /**
-     * Create top predictions array
+     * Create top predictions array from the stored model output
      */
     private TopPrediction[] createTopPredictions() {
-        // For demo purposes, create 3 predictions with decreasing confidence
-        TopPrediction[] predictions = new TopPrediction[3];
-
-        // Main prediction
-        predictions[0] = new TopPrediction(
-                scanResult.getPredictedClass(),
-                scanResult.getConfidence(),
-                1
-        );
-
-        // Generate mock secondary predictions
-        predictions[1] = new TopPrediction(
-                getAlternativePrediction(scanResult.getPredictedClass()),
-                Math.max(0.1f, scanResult.getConfidence() - 0.2f),
-                2
-        );
-
-        predictions[2] = new TopPrediction(
-                getAlternativePrediction2(scanResult.getPredictedClass()),
-                Math.max(0.05f, scanResult.getConfidence() - 0.4f),
-                3
-        );
-
-        return predictions;
-    }
+        if (!scanResult.hasTopPredictions()) {
+            // Scans saved before top-K was stored only know their main prediction
+            return createMainPredictionOnly();
+        }
 
-    /**
-     * Get alternative prediction for demo
-     */
-    private String getAlternativePrediction(String mainPrediction) {
-        if (mainPrediction.contains("Apple")) {
-            return mainPrediction.contains("healthy") ? "Apple___Apple_scab" : "Apple___healthy";
-        } else if (mainPrediction.contains("Tomato")) {
-            return mainPrediction.contains("healthy") ? "Tomato___Early_blight" : "Tomato___healthy";
-        } else {
-            return "Background_without_leaves";
+        try {
+            int[] indices = TopKSelector.decodeIndices(scanResult.getTopPredictions());
+            float[] confidences = TopKSelector.decodeValues(scanResult.getTopPredictions());
+
+            TopPrediction[] predictions = new TopPrediction[Math.min(indices.length, MAX_TOP_PREDICTIONS)];
+            for (int i = 0; i < predictions.length; i++) {
+                predictions[i] = new TopPrediction(
+                        PlantDiseaseClassifier.getClassName(indices[i]),
+                        confidences[i],
+                        i + 1
+                );
+            }
+            return predictions;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Invalid stored top predictions: " + scanResult.getTopPredictions(), e);
+            return createMainPredictionOnly();
         }
     }
 
     /**
-     * Get second alternative prediction for demo
+     * Single-entry list holding only the main prediction
      */
-    private String getAlternativePrediction2(String mainPrediction) {
-        if (mainPrediction.contains("Apple")) {
-            return "Apple___Black_rot";
-        } else if (mainPrediction.contains("Tomato")) {
-            return "Tomato___Late_blight";
-        } else {
-            return "Background_without_leaves";
-        }
+    private TopPrediction[] createMainPredictionOnly() {
+        return new TopPrediction[]{
+                new TopPrediction(scanResult.getPredictedClass(), scanResult.getConfidence(), 1)
+        };
     }
 
     @Override
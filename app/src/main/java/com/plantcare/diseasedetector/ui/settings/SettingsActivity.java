@@ -2,6 +2,8 @@ package com.plantcare.diseasedetector.ui.settings;
 
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.os.Build;
 import android.os.Bundle;
 import android.view.MenuItem;
 import android.view.View;
@@ -20,10 +22,31 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.slider.Slider;
 import com.google.android.material.switchmaterial.SwitchMaterial;
+import com.plantcare.diseasedetector.BuildConfig;
+import com.plantcare.diseasedetector.PlantDiseaseApplication;
 import com.plantcare.diseasedetector.R;
+import com.plantcare.diseasedetector.data.database.AppDatabase;
+import com.plantcare.diseasedetector.data.models.ScanResult;
+import com.plantcare.diseasedetector.ml.ImagePreprocessor;
+import com.plantcare.diseasedetector.ml.InferenceBenchmark;
+import com.plantcare.diseasedetector.ml.InferenceMetrics;
+import com.plantcare.diseasedetector.ml.ModelManager;
+import com.plantcare.diseasedetector.ml.ModelVariant;
+import com.plantcare.diseasedetector.ml.ModelVariantSelector;
+import com.plantcare.diseasedetector.ml.PlantDiseaseClassifier;
+import com.plantcare.diseasedetector.ml.core.LatencyHistogram;
 import com.plantcare.diseasedetector.utils.ExportHelper;
 import com.plantcare.diseasedetector.utils.BackupHelper;
+import com.plantcare.diseasedetector.utils.BitmapPool;
+import com.plantcare.diseasedetector.utils.ImageRequestManager;
+import com.plantcare.diseasedetector.utils.ImageUtils;
 import com.plantcare.diseasedetector.utils.NotificationHelper;
+import com.plantcare.diseasedetector.utils.PerformanceUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Settings Activity for app preferences and configuration
@@ -41,12 +64,27 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
     public static final String PREF_AI_CONFIDENCE_THRESHOLD = "ai_confidence_threshold";
     public static final String PREF_LANGUAGE = "language";
     public static final String PREF_MEASUREMENT_UNITS = "measurement_units";
+    public static final String PREF_MODEL_VARIANT = "model_variant";
+    public static final String PREF_TILED_ANALYSIS = "tiled_analysis";
+    public static final String PREF_ACCURACY_MODE = "accuracy_mode";
+
+    private static final int VARIANT_COMPARISON_IMAGES = 10;
+    private static final int DIAGNOSTICS_RECENT_SCANS = 100;
+    private static final int BENCHMARK_PREPROCESS_ITERATIONS = 100;
+    private static final int BENCHMARK_PREDICT_ITERATIONS = 20;
+    private static final int BENCHMARK_BATCH_SIZE = 4;
+    private static final int BENCHMARK_BATCH_ROUNDS = 3;
 
     // UI Components
     private Slider sliderConfidenceThreshold;
     private SeekBar seekBarCameraQuality;
+    private SwitchMaterial switchTiledAnalysis;
+    private SwitchMaterial switchAccuracyMode;
     private TextView tvConfidenceValue, tvCameraQualityValue;
     private TextView tvStorageUsed, tvBackupDate;
+    private TextView tvModelVariantValue, tvModelVariantReport;
+    private TextView tvDiagnosticsScans, tvDiagnosticsStages, tvDiagnosticsDevice;
+    private View layoutModelVariant;
 
     // Action Cards
     private CardView cardExportData, cardBackupRestore, cardClearCache, cardResetSettings;
@@ -54,12 +92,17 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
     // Action Buttons
     private MaterialButton btnExportData, btnBackupNow, btnRestoreData;
     private MaterialButton btnClearCache;
+    private MaterialButton btnCompareVariants;
+    private MaterialButton btnRefreshDiagnostics;
+    private MaterialButton btnRunBenchmarks;
 
     // Helpers
     private SharedPreferences preferences;
     private NotificationHelper notificationHelper;
     private ExportHelper exportHelper;
     private BackupHelper backupHelper;
+    private ModelVariantSelector variantSelector;
+    private ExecutorService backgroundExecutor;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -95,12 +138,20 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
         // Sliders and SeekBars
         sliderConfidenceThreshold = findViewById(R.id.slider_confidence_threshold);
         seekBarCameraQuality = findViewById(R.id.seekbar_camera_quality);
+        switchTiledAnalysis = findViewById(R.id.switch_tiled_analysis);
+        switchAccuracyMode = findViewById(R.id.switch_accuracy_mode);
 
         // Text Views
         tvConfidenceValue = findViewById(R.id.tv_confidence_value);
         tvCameraQualityValue = findViewById(R.id.tv_camera_quality_value);
         tvStorageUsed = findViewById(R.id.tv_storage_used);
         tvBackupDate = findViewById(R.id.tv_backup_date);
+        tvModelVariantValue = findViewById(R.id.tv_model_variant_value);
+        tvModelVariantReport = findViewById(R.id.tv_model_variant_report);
+        layoutModelVariant = findViewById(R.id.layout_model_variant);
+        tvDiagnosticsScans = findViewById(R.id.tv_diagnostics_scans);
+        tvDiagnosticsStages = findViewById(R.id.tv_diagnostics_stages);
+        tvDiagnosticsDevice = findViewById(R.id.tv_diagnostics_device);
 
         // Cards
         cardExportData = findViewById(R.id.card_export_data);
@@ -113,6 +164,9 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
         btnBackupNow = findViewById(R.id.btn_backup_now);
         btnRestoreData = findViewById(R.id.btn_restore_data);
         btnClearCache = findViewById(R.id.btn_clear_cache);
+        btnCompareVariants = findViewById(R.id.btn_compare_variants);
+        btnRefreshDiagnostics = findViewById(R.id.btn_refresh_diagnostics);
+        btnRunBenchmarks = findViewById(R.id.btn_run_benchmarks);
     }
 
     /**
@@ -123,6 +177,8 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
         notificationHelper = new NotificationHelper(this);
         exportHelper = new ExportHelper(this);
         backupHelper = new BackupHelper(this);
+        variantSelector = new ModelVariantSelector(this);
+        backgroundExecutor = Executors.newSingleThreadExecutor();
     }
 
     /**
@@ -174,6 +230,18 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
             });
         }
 
+        if (switchTiledAnalysis != null) {
+            switchTiledAnalysis.setOnCheckedChangeListener((buttonView, isChecked) ->
+                    preferences.edit().putBoolean(PREF_TILED_ANALYSIS, isChecked).apply());
+        }
+
+        if (switchAccuracyMode != null) {
+            switchAccuracyMode.setOnCheckedChangeListener((buttonView, isChecked) -> {
+                preferences.edit().putBoolean(PREF_ACCURACY_MODE, isChecked).apply();
+                PlantDiseaseApplication.getInstance().getModelManager().refreshAugmentationPolicy();
+            });
+        }
+
         // Card click listeners with null checks
         if (cardExportData != null) cardExportData.setOnClickListener(this);
         if (cardBackupRestore != null) cardBackupRestore.setOnClickListener(this);
@@ -185,6 +253,14 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
         if (btnBackupNow != null) btnBackupNow.setOnClickListener(this);
         if (btnRestoreData != null) btnRestoreData.setOnClickListener(this);
         if (btnClearCache != null) btnClearCache.setOnClickListener(this);
+        if (layoutModelVariant != null) layoutModelVariant.setOnClickListener(this);
+        if (btnCompareVariants != null) btnCompareVariants.setOnClickListener(this);
+        if (btnRefreshDiagnostics != null) btnRefreshDiagnostics.setOnClickListener(this);
+        if (btnRunBenchmarks != null && BuildConfig.DEBUG) {
+            // Multi-second loops on the shared model - debug builds only
+            btnRunBenchmarks.setVisibility(View.VISIBLE);
+            btnRunBenchmarks.setOnClickListener(this);
+        }
     }
 
     /**
@@ -201,6 +277,14 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
                 int cameraQuality = preferences.getInt(PREF_CAMERA_QUALITY, 80);
                 seekBarCameraQuality.setProgress(cameraQuality);
             }
+
+            if (switchTiledAnalysis != null) {
+                switchTiledAnalysis.setChecked(preferences.getBoolean(PREF_TILED_ANALYSIS, false));
+            }
+
+            if (switchAccuracyMode != null) {
+                switchAccuracyMode.setChecked(preferences.getBoolean(PREF_ACCURACY_MODE, false));
+            }
         } catch (Exception e) {
             android.util.Log.e(TAG, "Error loading preferences", e);
         }
@@ -219,6 +303,8 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
             }
             updateStorageInfo();
             updateBackupInfo();
+            updateModelVariantInfo();
+            updateDiagnostics();
         } catch (Exception e) {
             android.util.Log.e(TAG, "Error updating UI", e);
         }
@@ -234,6 +320,7 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
             try {
                 updateConfidenceValue((int) value);
                 preferences.edit().putFloat(PREF_AI_CONFIDENCE_THRESHOLD, value / 100f).apply();
+                PlantDiseaseApplication.getInstance().getModelManager().refreshAugmentationPolicy();
             } catch (Exception e) {
                 android.util.Log.e(TAG, "Error changing confidence threshold", e);
             }
@@ -300,6 +387,70 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
         }
     }
 
+    /**
+     * Update model variant choice and last comparison report
+     */
+    private void updateModelVariantInfo() {
+        try {
+            ModelVariant chosen = ModelVariant.fromKey(variantSelector.getPreference());
+            ModelVariant active = PlantDiseaseApplication.getInstance().getModelManager().getActiveVariant();
+
+            if (tvModelVariantValue != null) {
+                String text = chosen != null ? chosen.displayName : "Automatic";
+                if (chosen == null && active != null) {
+                    text += " (" + active.key + ")";
+                }
+                tvModelVariantValue.setText(text);
+            }
+
+            String report = variantSelector.getLastReport();
+            if (tvModelVariantReport != null && report != null) {
+                tvModelVariantReport.setText(report);
+            }
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error updating model variant info", e);
+        }
+    }
+
+    /**
+     * Show latency percentiles of recent scans, per-stage histograms and device info
+     */
+    private void updateDiagnostics() {
+        if (tvDiagnosticsStages != null) {
+            tvDiagnosticsStages.setText(InferenceMetrics.getInstance().getSummary()
+                    + "\n" + BitmapPool.getInstance().getSummary()
+                    + "\n" + ImageRequestManager.getInstance(this).getSummary());
+        }
+
+        if (tvDiagnosticsDevice != null) {
+            ModelVariant active = PlantDiseaseApplication.getInstance().getModelManager().getActiveVariant();
+            tvDiagnosticsDevice.setText(String.format("%s %s, Android %s, %d cores, app %s, model %s",
+                    Build.MANUFACTURER, Build.MODEL, Build.VERSION.RELEASE,
+                    Runtime.getRuntime().availableProcessors(), PerformanceUtils.getAppVersion(this),
+                    active != null ? active.key : "not loaded"));
+        }
+
+        backgroundExecutor.execute(() -> {
+            try {
+                List<Long> times = AppDatabase.getInstance(this).scanResultDao()
+                        .getRecentProcessingTimes(DIAGNOSTICS_RECENT_SCANS);
+                LatencyHistogram histogram = new LatencyHistogram();
+                for (Long time : times) {
+                    histogram.record(time * 1000);
+                }
+                String text = times.isEmpty() ? "No scans yet" : histogram.summary();
+
+                runOnUiThread(() -> {
+                    if (tvDiagnosticsScans != null) {
+                        tvDiagnosticsScans.setText(text);
+                    }
+                });
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Error loading scan diagnostics", e);
+            }
+        });
+    }
+
     @Override
     public void onClick(View v) {
         try {
@@ -315,6 +466,14 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
                 clearCache();
             } else if (id == R.id.card_reset_settings) {
                 showResetDialog();
+            } else if (id == R.id.layout_model_variant) {
+                showModelVariantDialog();
+            } else if (id == R.id.btn_compare_variants) {
+                compareModelVariants();
+            } else if (id == R.id.btn_refresh_diagnostics) {
+                updateDiagnostics();
+            } else if (id == R.id.btn_run_benchmarks) {
+                runBenchmarks();
             }
         } catch (Exception e) {
             android.util.Log.e(TAG, "Error handling click", e);
@@ -356,6 +515,175 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
         }
     }
 
+    /**
+     * Let the user pin a model variant or leave the choice to the device check
+     */
+    private void showModelVariantDialog() {
+        try {
+            List<String> keys = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            keys.add(ModelVariantSelector.AUTO);
+            names.add("Automatic (based on device)");
+            for (ModelVariant variant : ModelVariant.values()) {
+                if (variant.isBundled(this)) {
+                    keys.add(variant.key);
+                    names.add(variant.displayName);
+                }
+            }
+
+            int checked = Math.max(0, keys.indexOf(variantSelector.getPreference()));
+
+            new MaterialAlertDialogBuilder(this)
+                    .setTitle("AI Model")
+                    .setSingleChoiceItems(names.toArray(new String[0]), checked, (dialog, which) -> {
+                        try {
+                            variantSelector.setPreference(keys.get(which));
+                            PlantDiseaseApplication.getInstance().getModelManager().reload();
+                            updateModelVariantInfo();
+                            showToast("Model will be reloaded");
+                        } catch (Exception e) {
+                            android.util.Log.e(TAG, "Error changing model variant", e);
+                            showToast("Could not change model");
+                        }
+                        dialog.dismiss();
+                    })
+                    .setNegativeButton("Cancel", null)
+                    .show();
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error showing model variant dialog", e);
+        }
+    }
+
+    /**
+     * Run each bundled variant over recent scans and report latency and agreement
+     */
+    private void compareModelVariants() {
+        if (btnCompareVariants != null) {
+            btnCompareVariants.setEnabled(false);
+        }
+        showToast("Comparing models on recent scans...");
+
+        backgroundExecutor.execute(() -> {
+            ModelManager modelManager = PlantDiseaseApplication.getInstance().getModelManager();
+            List<Bitmap> images = new ArrayList<>();
+            String report;
+
+            try {
+                List<ScanResult> scans = AppDatabase.getInstance(this).scanResultDao()
+                        .getRecentScans(VARIANT_COMPARISON_IMAGES);
+                for (ScanResult scan : scans) {
+                    Bitmap bitmap = ImageUtils.loadInferenceBitmap(scan.getImagePath(),
+                            ImagePreprocessor.INPUT_SIZE, false, false);
+                    if (bitmap != null) {
+                        images.add(bitmap);
+                    }
+                }
+
+                if (images.isEmpty()) {
+                    report = null;
+                } else {
+                    // Only one model in memory at a time
+                    modelManager.unload();
+                    List<InferenceBenchmark.VariantComparison> comparisons =
+                            InferenceBenchmark.compareVariants(this, images);
+
+                    StringBuilder builder = new StringBuilder();
+                    for (InferenceBenchmark.VariantComparison comparison : comparisons) {
+                        if (builder.length() > 0) builder.append('\n');
+                        builder.append(String.format("%s: %.0f ms, %.0f%% agreement",
+                                comparison.variant.displayName, comparison.getAverageMillis(),
+                                comparison.top1Agreement * 100));
+                    }
+                    builder.append(String.format("\n(%d recent scans)", images.size()));
+                    report = builder.toString();
+                    variantSelector.saveReport(report);
+                }
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Error comparing model variants", e);
+                report = null;
+            } finally {
+                for (Bitmap bitmap : images) {
+                    bitmap.recycle();
+                }
+                modelManager.preload();
+            }
+
+            final String result = report;
+            final boolean hadImages = !images.isEmpty();
+            runOnUiThread(() -> {
+                if (isFinishing() || isDestroyed()) return;
+                if (btnCompareVariants != null) {
+                    btnCompareVariants.setEnabled(true);
+                }
+                if (result != null) {
+                    updateModelVariantInfo();
+                    new MaterialAlertDialogBuilder(this)
+                            .setTitle("Model Comparison")
+                            .setMessage(result)
+                            .setPositiveButton("OK", null)
+                            .show();
+                } else {
+                    showToast(hadImages ? "Model comparison failed" : "Scan a few plants first");
+                }
+            });
+        });
+    }
+
+    /**
+     * Run the inference microbenchmarks on the loaded model and show latency and
+     * allocations per operation - a steady state of 0 allocations is expected - plus
+     * sequential vs batched throughput (debug builds only)
+     */
+    private void runBenchmarks() {
+        if (!BuildConfig.DEBUG) return;
+
+        PlantDiseaseClassifier classifier = PlantDiseaseApplication.getInstance().getModelManager().getModelIfReady();
+        if (classifier == null) {
+            showToast("Model not loaded yet");
+            return;
+        }
+        if (btnRunBenchmarks != null) {
+            btnRunBenchmarks.setEnabled(false);
+        }
+        showToast("Running benchmarks...");
+
+        backgroundExecutor.execute(() -> {
+            StringBuilder report = new StringBuilder();
+            try {
+                report.append(InferenceBenchmark.benchmarkPreprocessing(BENCHMARK_PREPROCESS_ITERATIONS));
+                InferenceBenchmark.Result prediction =
+                        InferenceBenchmark.benchmarkPrediction(classifier, BENCHMARK_PREDICT_ITERATIONS);
+                if (prediction != null) {
+                    report.append("\n").append(prediction);
+                }
+                InferenceBenchmark.BatchComparison batch = InferenceBenchmark.benchmarkBatch(
+                        classifier, BENCHMARK_BATCH_SIZE, BENCHMARK_BATCH_ROUNDS);
+                if (batch != null) {
+                    report.append("\n").append(batch);
+                }
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Error running benchmarks", e);
+                report.setLength(0);
+            }
+
+            runOnUiThread(() -> {
+                if (isFinishing() || isDestroyed()) return;
+                if (btnRunBenchmarks != null) {
+                    btnRunBenchmarks.setEnabled(true);
+                }
+                if (report.length() > 0) {
+                    new MaterialAlertDialogBuilder(this)
+                            .setTitle("Benchmarks")
+                            .setMessage(report.toString())
+                            .setPositiveButton("OK", null)
+                            .show();
+                } else {
+                    showToast("Benchmarks failed");
+                }
+            });
+        });
+    }
+
     /**
      * Perform backup
      */
@@ -503,6 +831,14 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (backgroundExecutor != null) {
+            backgroundExecutor.shutdown();
+        }
+    }
+
     /**
      * Handle toolbar navigation
      */
@@ -19,9 +19,11 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.zip.ZipEntry;
@@ -197,6 +199,13 @@ public class BackupHelper {
             scanObject.put("location", result.getLocation());
             scanObject.put("notes", result.getNotes());
             scanObject.put("treatment_applied", result.getTreatmentApplied());
+            scanObject.put("top_predictions", result.getTopPredictions());
+            scanObject.put("quality_score", result.getQualityScore());
+            scanObject.put("quality_issue", result.getQualityIssue());
+            scanObject.put("processing_time_ms", result.getProcessingTimeMs());
+            scanObject.put("top_margin", result.getTopMargin());
+            scanObject.put("entropy", result.getEntropy());
+            scanObject.put("lesion_heatmap", result.getLesionHeatmap());
 
             if (result.getFollowUpDate() != null) {
                 scanObject.put("follow_up_date", new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(result.getFollowUpDate()));
@@ -239,9 +248,11 @@ public class BackupHelper {
      */
     private void copyImages(File imagesDir) throws IOException {
         List<ScanResult> scanResults = database.scanResultDao().getAllScanResults();
+        Set<String> copiedPaths = new HashSet<>(); // Scans of the same photo share one stored file
 
         for (ScanResult result : scanResults) {
-            if (result.getImagePath() != null && !result.getImagePath().isEmpty()) {
+            if (result.getImagePath() != null && !result.getImagePath().isEmpty()
+                    && copiedPaths.add(result.getImagePath())) {
                 File originalImage = new File(result.getImagePath());
                 if (originalImage.exists()) {
                     File backupImage = new File(imagesDir, "scan_" + result.getId() + "_" + originalImage.getName());
@@ -358,6 +369,13 @@ public class BackupHelper {
             result.setLocation(scanObject.optString("location"));
             result.setNotes(scanObject.optString("notes"));
             result.setTreatmentApplied(scanObject.optString("treatment_applied"));
+            result.setTopPredictions(scanObject.optString("top_predictions", null));
+            result.setQualityScore(optFloat(scanObject, "quality_score"));
+            result.setQualityIssue(scanObject.optString("quality_issue", null));
+            result.setProcessingTimeMs(scanObject.optLong("processing_time_ms"));
+            result.setTopMargin(optFloat(scanObject, "top_margin"));
+            result.setEntropy(optFloat(scanObject, "entropy"));
+            result.setLesionHeatmap(scanObject.optString("lesion_heatmap", null));
 
             // Parse dates
             try {
@@ -543,6 +561,13 @@ public class BackupHelper {
         fos.close();
     }
 
+    /**
+     * Read an optional float field, or null when it is absent
+     */
+    private static Float optFloat(JSONObject object, String name) {
+        return object.isNull(name) ? null : (float) object.optDouble(name);
+    }
+
     private void deleteDirectory(File dir) {
         if (dir.isDirectory()) {
             File[] children = dir.listFiles();
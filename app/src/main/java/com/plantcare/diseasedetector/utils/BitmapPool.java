@@ -0,0 +1,189 @@
+package com.plantcare.diseasedetector.utils;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of mutable bitmaps reused by the decode, rotate and scale helpers
+ * Bitmaps are bucketed by allocation size: since API 19 any bitmap with enough
+ * bytes can be reconfigured to new dimensions or be the target of
+ * BitmapFactory.Options.inBitmap, so one bucket serves every shape of that size.
+ * Least recently pooled bitmaps are recycled first once the byte budget is exceeded.
+ *
+ * Only put bitmaps nothing else references - e.g. the ones a helper used to recycle.
+ */
+public final class BitmapPool {
+
+    private static final String TAG = "BitmapPool";
+    private static final int MAX_OVERSIZE = 2;                  // Never reuse a bitmap over 2x the needed bytes
+    private static final long MAX_BUDGET_BYTES = 16L * 1024 * 1024;
+    private static final int HEAP_SHARE = 16;                   // At most 1/16 of the heap
+    private static final long RESTORE_AFTER_MS = 60000;         // Full budget again after a quiet minute
+
+    private static final BitmapPool INSTANCE = new BitmapPool(
+            Math.min(MAX_BUDGET_BYTES, Runtime.getRuntime().maxMemory() / HEAP_SHARE));
+
+    private final long maxBytes;
+    private long budgetBytes;
+    private long pooledBytes;
+    private long trimmedAt;
+    private final TreeMap<Integer, ArrayDeque<Bitmap>> buckets = new TreeMap<>();
+    private final ArrayDeque<Bitmap> order = new ArrayDeque<>();   // Oldest first, for eviction
+
+    // Metrics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.budgetBytes = maxBytes;
+    }
+
+    public static BitmapPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Bitmap of exactly the given size, cleared to transparent - pooled if possible
+     */
+    public Bitmap get(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = take(width * height * bytesPerPixel(config));
+        if (bitmap != null) {
+            try {
+                bitmap.reconfigure(width, height, config);
+                bitmap.eraseColor(Color.TRANSPARENT);
+                hits.incrementAndGet();
+                return bitmap;
+            } catch (IllegalArgumentException e) {
+                bitmap.recycle();
+            }
+        }
+        misses.incrementAndGet();
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Pooled bitmap with room for a decode of the given size, for Options.inBitmap,
+     * or null on a miss. Hand it back with put() if the decode fails.
+     */
+    public Bitmap getForDecode(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = take(width * height * bytesPerPixel(config));
+        (bitmap != null ? hits : misses).incrementAndGet();
+        return bitmap;
+    }
+
+    private synchronized Bitmap take(int bytes) {
+        Map.Entry<Integer, ArrayDeque<Bitmap>> entry = buckets.ceilingEntry(bytes);
+        if (entry == null || entry.getKey() > (long) bytes * MAX_OVERSIZE) {
+            return null;
+        }
+
+        ArrayDeque<Bitmap> bucket = entry.getValue();
+        Bitmap bitmap = bucket.pollLast();
+        if (bucket.isEmpty()) {
+            buckets.remove(entry.getKey());
+        }
+        order.remove(bitmap);
+        pooledBytes -= entry.getKey();
+        return bitmap;
+    }
+
+    /**
+     * Return a bitmap for reuse; ones that cannot be reused are recycled
+     */
+    public void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) return;
+
+        int bytes = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || !isPoolable(bitmap.getConfig())) {
+            bitmap.recycle();
+            return;
+        }
+
+        synchronized (this) {
+            if (budgetBytes < maxBytes && SystemClock.elapsedRealtime() - trimmedAt > RESTORE_AFTER_MS) {
+                budgetBytes = maxBytes;
+            }
+            if (bytes > budgetBytes / 2) {
+                bitmap.recycle();
+                return;
+            }
+            ArrayDeque<Bitmap> bucket = buckets.get(bytes);
+            if (bucket == null) {
+                bucket = new ArrayDeque<>();
+                buckets.put(bytes, bucket);
+            }
+            bucket.addLast(bitmap);
+            order.addLast(bitmap);
+            pooledBytes += bytes;
+            evictTo(budgetBytes);
+        }
+    }
+
+    private static boolean isPoolable(Bitmap.Config config) {
+        if (config == null) return false;
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.O || config != Bitmap.Config.HARDWARE;
+    }
+
+    private static int bytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) return 2;
+        if (config == Bitmap.Config.ALPHA_8) return 1;
+        return 4;
+    }
+
+    private synchronized void evictTo(long targetBytes) {
+        while (pooledBytes > targetBytes && !order.isEmpty()) {
+            Bitmap oldest = order.pollFirst();
+            int bytes = oldest.getAllocationByteCount();
+            ArrayDeque<Bitmap> bucket = buckets.get(bytes);
+            if (bucket != null) {
+                bucket.remove(oldest);
+                if (bucket.isEmpty()) {
+                    buckets.remove(bytes);
+                }
+            }
+            pooledBytes -= bytes;
+            oldest.recycle();
+        }
+    }
+
+    /**
+     * Shrink the budget under memory pressure; it is restored a minute after the last trim
+     */
+    public synchronized void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            budgetBytes = 0;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            budgetBytes = maxBytes / 2;
+        } else {
+            return;
+        }
+        trimmedAt = SystemClock.elapsedRealtime();
+        evictTo(budgetBytes);
+        Log.d(TAG, "Trimmed to " + PerformanceUtils.formatBytes(budgetBytes) + " - " + getSummary());
+    }
+
+    /**
+     * Share of requests served from the pool, 0 before the first request
+     */
+    public float getHitRate() {
+        long total = hits.get() + misses.get();
+        return total > 0 ? (float) hits.get() / total : 0f;
+    }
+
+    public synchronized String getSummary() {
+        return String.format("Bitmap pool: %.0f%% hits (%d of %d), %s in %d bitmaps",
+                getHitRate() * 100, hits.get(), hits.get() + misses.get(),
+                PerformanceUtils.formatBytes(pooledBytes), order.size());
+    }
+}
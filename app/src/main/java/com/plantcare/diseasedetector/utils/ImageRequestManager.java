@@ -0,0 +1,186 @@
+package com.plantcare.diseasedetector.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.widget.ImageView;
+
+import com.plantcare.diseasedetector.R;
+import com.plantcare.diseasedetector.data.models.ScanResult;
+
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thumbnail loading for RecyclerView rows, tied to the holder lifecycle
+ * Each ImageView is tagged with its pending request: rebinding or recycling the
+ * holder cancels it, so a fling only decodes what is still on screen and a late
+ * result can never land in a row that now shows another scan.
+ *
+ * Requests start at prefetch priority when bound and move ahead once their view is
+ * attached; within a priority the newest request runs first. All methods except the
+ * worker side must be called on the main thread.
+ */
+public class ImageRequestManager {
+
+    private static final int WORKER_THREADS = 2;
+
+    private final ThumbnailCache thumbnailCache;
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler;
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Metrics
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong memoryHits = new AtomicLong();
+
+    // Singleton instance
+    private static volatile ImageRequestManager INSTANCE;
+
+    private ImageRequestManager(Context context) {
+        this.thumbnailCache = ThumbnailCache.getInstance(context);
+        this.executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>(), r -> new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }, "ImageRequest"));
+        this.mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static ImageRequestManager getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ImageRequestManager.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ImageRequestManager(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Show a scan's thumbnail in target, replacing whatever request it had.
+     * Memory hits are set immediately; otherwise the placeholder shows until the load completes.
+     */
+    public void load(ImageView target, ScanResult scanResult, int size) {
+        cancel(target);
+
+        String imagePath = scanResult.getImagePath();
+        if (imagePath == null || imagePath.isEmpty()) {
+            target.setImageResource(R.drawable.placeholder_plant);
+            return;
+        }
+
+        Bitmap cached = thumbnailCache.getFromMemory(imagePath, size);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            target.setImageBitmap(cached);
+            return;
+        }
+
+        target.setImageResource(R.drawable.placeholder_plant);
+        Request request = new Request(target, scanResult.getId(), imagePath,
+                ThumbnailCache.scanThumbnailPath(scanResult, size), size,
+                target.isAttachedToWindow());
+        target.setTag(R.id.tag_image_request, request);
+        submitted.incrementAndGet();
+        executor.execute(request);
+    }
+
+    /**
+     * Drop the pending request of target, e.g. from onViewRecycled
+     */
+    public void cancel(ImageView target) {
+        Request request = (Request) target.getTag(R.id.tag_image_request);
+        if (request == null) return;
+
+        target.setTag(R.id.tag_image_request, null);
+        if (request.cancel(false)) {
+            cancelled.incrementAndGet();
+            executor.remove(request);
+        }
+    }
+
+    /**
+     * Move target's pending request ahead of (or back behind) prefetched rows -
+     * call from onViewAttachedToWindow / onViewDetachedFromWindow
+     */
+    public void setVisible(ImageView target, boolean visible) {
+        Request request = (Request) target.getTag(R.id.tag_image_request);
+        if (request == null || request.visible == visible) return;
+
+        // Re-insert so the priority queue sees the new ordering
+        if (executor.remove(request)) {
+            request.visible = visible;
+            executor.execute(request);
+        } else {
+            request.visible = visible;
+        }
+    }
+
+    public String getSummary() {
+        return String.format("Thumbnails: %d loaded, %d cancelled before decoding, %d from memory",
+                submitted.get() - cancelled.get(), cancelled.get(), memoryHits.get());
+    }
+
+    /**
+     * One pending thumbnail load, ordered visible first, then newest first
+     */
+    private class Request extends FutureTask<Bitmap> implements Comparable<Request> {
+
+        final ImageView target;
+        final long order;
+        volatile boolean visible;
+
+        Request(ImageView target, int scanId, String imagePath, String thumbnailPath, int size, boolean visible) {
+            super(() -> thumbnailCache.get(scanId, imagePath, thumbnailPath, size));
+            this.target = target;
+            this.order = sequence.incrementAndGet();
+            this.visible = visible;
+        }
+
+        @Override
+        public void run() {
+            if (isCancelled()) return;
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) return;
+
+            Bitmap bitmap;
+            try {
+                bitmap = get();
+            } catch (Exception e) {
+                return;
+            }
+            if (bitmap == null) return;
+
+            mainHandler.post(() -> {
+                // Still the view's current request - it was not rebound or recycled meanwhile
+                if (target.getTag(R.id.tag_image_request) == this) {
+                    target.setTag(R.id.tag_image_request, null);
+                    target.setImageBitmap(bitmap);
+                }
+            });
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            if (visible != other.visible) {
+                return visible ? -1 : 1;
+            }
+            return Long.compare(other.order, order);
+        }
+    }
+}
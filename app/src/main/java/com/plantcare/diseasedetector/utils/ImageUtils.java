@@ -3,7 +3,13 @@ package com.plantcare.diseasedetector.utils;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.media.ExifInterface;
 import android.net.Uri;
 import android.os.Environment;
@@ -28,6 +34,20 @@ public class ImageUtils {
     private static final String IMAGE_DIRECTORY = "PlantScans";
     private static final int MAX_IMAGE_SIZE = 1024; // Maximum width/height for processed images
     private static final int JPEG_QUALITY = 85; // JPEG compression quality
+    private static final int LEAF_PROBE_SIZE = 64; // Short side of the preview used to locate the leaf
+    private static final float MIN_LEAF_COVERAGE = 0.05f; // Fall back to center crop below this
+
+    /**
+     * Directory holding scan photos, created if needed; null if it cannot be created
+     */
+    public static File getImageDirectory(Context context) {
+        File storageDir = new File(context.getExternalFilesDir(Environment.DIRECTORY_PICTURES), IMAGE_DIRECTORY);
+        if (!storageDir.exists() && !storageDir.mkdirs()) {
+            Log.e(TAG, "Failed to create image directory");
+            return null;
+        }
+        return storageDir;
+    }
 
     /**
      * Create a new image file in the app's external directory
@@ -39,11 +59,8 @@ public class ImageUtils {
             String imageFileName = "PLANT_" + timeStamp + "_";
 
             // Get app's external storage directory
-            File storageDir = new File(context.getExternalFilesDir(Environment.DIRECTORY_PICTURES), IMAGE_DIRECTORY);
-
-            // Create directory if it doesn't exist
-            if (!storageDir.exists() && !storageDir.mkdirs()) {
-                Log.e(TAG, "Failed to create image directory");
+            File storageDir = getImageDirectory(context);
+            if (storageDir == null) {
                 return null;
             }
 
@@ -86,7 +103,7 @@ public class ImageUtils {
             options.inJustDecodeBounds = false;
 
             // Load the bitmap with reduced size
-            Bitmap bitmap = BitmapFactory.decodeFile(imagePath, options);
+            Bitmap bitmap = decodeFilePooled(imagePath, options);
 
             if (bitmap == null) {
                 Log.e(TAG, "Failed to decode bitmap from: " + imagePath);
@@ -145,6 +162,204 @@ public class ImageUtils {
         }
     }
 
+    /**
+     * Load a square crop for model input, decoded close to targetSize
+     * Only the cropped region is decoded (BitmapRegionDecoder) with the largest
+     * power-of-2 inSampleSize that keeps it >= targetSize, and EXIF rotation is
+     * applied to the small result. A 12MP capture costs well under 1MB instead of ~48MB.
+     *
+     * @param leafFocused center the crop on the greenest area instead of the frame center
+     * @param preferRgb565 decode to RGB_565 to halve memory (slight color banding)
+     */
+    public static Bitmap loadInferenceBitmap(String imagePath, int targetSize,
+                                             boolean leafFocused, boolean preferRgb565) {
+        if (imagePath == null || imagePath.isEmpty()) {
+            Log.w(TAG, "Image path is null or empty");
+            return null;
+        }
+
+        try {
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(imagePath, bounds);
+            int width = bounds.outWidth;
+            int height = bounds.outHeight;
+            if (width <= 0 || height <= 0) {
+                Log.e(TAG, "Failed to read image bounds: " + imagePath);
+                return null;
+            }
+
+            // Square crop in raw (un-rotated) image coordinates
+            int side = Math.min(width, height);
+            int centerX = width / 2;
+            int centerY = height / 2;
+            if (leafFocused) {
+                int[] leafCenter = findLeafCenter(imagePath, width, height);
+                if (leafCenter != null) {
+                    centerX = leafCenter[0];
+                    centerY = leafCenter[1];
+                }
+            }
+            int left = Math.max(0, Math.min(width - side, centerX - side / 2));
+            int top = Math.max(0, Math.min(height - side, centerY - side / 2));
+            Rect crop = new Rect(left, top, left + side, top + side);
+
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = 1;
+            while (side / (options.inSampleSize * 2) >= targetSize) {
+                options.inSampleSize *= 2;
+            }
+            options.inPreferredConfig = preferRgb565 ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+            options.inMutable = true; // Lets the pool reuse it once rotated or classified
+
+            Bitmap bitmap = decodeRegion(imagePath, crop, options);
+            if (bitmap == null) {
+                Log.e(TAG, "Failed to decode inference bitmap from: " + imagePath);
+                return null;
+            }
+
+            Log.d(TAG, String.format("Inference bitmap %dx%d from %dx%d (sample %d)",
+                    bitmap.getWidth(), bitmap.getHeight(), width, height, options.inSampleSize));
+
+            return rotateImageIfRequired(bitmap, imagePath);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading inference bitmap from: " + imagePath, e);
+            return null;
+        }
+    }
+
+    /**
+     * Load a center square crop for model input from an in-memory JPEG
+     * Same region decode and subsampling as the file variant, for captures that
+     * have not been written to disk yet.
+     *
+     * @param rotationDegrees clockwise rotation reported with the capture
+     */
+    public static Bitmap loadInferenceBitmap(byte[] jpeg, int rotationDegrees, int targetSize) {
+        if (jpeg == null || jpeg.length == 0) {
+            Log.w(TAG, "JPEG data is null or empty");
+            return null;
+        }
+
+        BitmapRegionDecoder decoder = null;
+        try {
+            decoder = BitmapRegionDecoder.newInstance(jpeg, 0, jpeg.length, false);
+            int width = decoder.getWidth();
+            int height = decoder.getHeight();
+            int side = Math.min(width, height);
+            int left = (width - side) / 2;
+            int top = (height - side) / 2;
+
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = 1;
+            while (side / (options.inSampleSize * 2) >= targetSize) {
+                options.inSampleSize *= 2;
+            }
+            options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            options.inMutable = true;
+
+            Bitmap bitmap = decoder.decodeRegion(new Rect(left, top, left + side, top + side), options);
+            if (bitmap == null) {
+                Log.e(TAG, "Failed to decode inference bitmap from JPEG data");
+                return null;
+            }
+
+            Log.d(TAG, String.format("Inference bitmap %dx%d from in-memory %dx%d (sample %d)",
+                    bitmap.getWidth(), bitmap.getHeight(), width, height, options.inSampleSize));
+
+            return rotateBitmap(bitmap, rotationDegrees);
+
+        } catch (IOException | IllegalArgumentException e) {
+            Log.e(TAG, "Error loading inference bitmap from JPEG data", e);
+            return null;
+        } finally {
+            if (decoder != null) {
+                decoder.recycle();
+            }
+        }
+    }
+
+    /**
+     * Decode only the crop region, falling back to a subsampled full decode
+     * for formats BitmapRegionDecoder does not support
+     */
+    private static Bitmap decodeRegion(String imagePath, Rect crop, BitmapFactory.Options options) {
+        BitmapRegionDecoder decoder = null;
+        try {
+            decoder = BitmapRegionDecoder.newInstance(imagePath, false);
+            Bitmap region = decoder.decodeRegion(crop, options);
+            if (region != null) {
+                return region;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "Region decode not supported, using subsampled decode: " + imagePath);
+        } finally {
+            if (decoder != null) {
+                decoder.recycle();
+            }
+        }
+
+        Bitmap full = BitmapFactory.decodeFile(imagePath, options);
+        if (full == null) return null;
+
+        int sample = options.inSampleSize;
+        int x = Math.min(crop.left / sample, full.getWidth() - 1);
+        int y = Math.min(crop.top / sample, full.getHeight() - 1);
+        int size = Math.min(crop.width() / sample, Math.min(full.getWidth() - x, full.getHeight() - y));
+        Matrix matrix = new Matrix();
+        matrix.setTranslate(-x, -y);
+        return transformPooled(full, matrix, size, size);
+    }
+
+    /**
+     * Locate the leaf as the centroid of strongly green pixels in a tiny preview
+     * Returns {x, y} in full-image coordinates, or null when too little green is found.
+     */
+    private static int[] findLeafCenter(String imagePath, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = 1;
+        while (Math.min(width, height) / (options.inSampleSize * 2) >= LEAF_PROBE_SIZE) {
+            options.inSampleSize *= 2;
+        }
+
+        Bitmap probe = BitmapFactory.decodeFile(imagePath, options);
+        if (probe == null) return null;
+
+        int probeWidth = probe.getWidth();
+        int probeHeight = probe.getHeight();
+        int[] pixels = new int[probeWidth * probeHeight];
+        probe.getPixels(pixels, 0, probeWidth, 0, 0, probeWidth, probeHeight);
+        probe.recycle();
+
+        // Excess green (2G - R - B) weighted centroid
+        long sumX = 0, sumY = 0, totalWeight = 0;
+        int greenCount = 0;
+        for (int y = 0; y < probeHeight; y++) {
+            for (int x = 0; x < probeWidth; x++) {
+                int pixel = pixels[y * probeWidth + x];
+                int excessGreen = 2 * Color.green(pixel) - Color.red(pixel) - Color.blue(pixel);
+                if (excessGreen > 20) {
+                    sumX += (long) x * excessGreen;
+                    sumY += (long) y * excessGreen;
+                    totalWeight += excessGreen;
+                    greenCount++;
+                }
+            }
+        }
+
+        if (greenCount < pixels.length * MIN_LEAF_COVERAGE || totalWeight == 0) {
+            return null;
+        }
+
+        float scaleX = (float) width / probeWidth;
+        float scaleY = (float) height / probeHeight;
+        return new int[]{
+                Math.round((sumX / (float) totalWeight + 0.5f) * scaleX),
+                Math.round((sumY / (float) totalWeight + 0.5f) * scaleY)
+        };
+    }
+
     /**
      * Calculate optimal sample size for image loading
      */
@@ -185,13 +400,10 @@ public class ImageUtils {
         int newWidth = Math.round(width * ratio);
         int newHeight = Math.round(height * ratio);
 
-        // Create resized bitmap
-        Bitmap resizedBitmap = Bitmap.createScaledBitmap(bitmap, newWidth, newHeight, true);
-
-        // Recycle original if it's different from resized
-        if (resizedBitmap != bitmap) {
-            bitmap.recycle();
-        }
+        // Draw into a pooled bitmap; the original goes back to the pool
+        Matrix matrix = new Matrix();
+        matrix.setScale((float) newWidth / width, (float) newHeight / height);
+        Bitmap resizedBitmap = transformPooled(bitmap, matrix, newWidth, newHeight);
 
         Log.d(TAG, String.format("Resized bitmap from %dx%d to %dx%d", width, height, newWidth, newHeight));
         return resizedBitmap;
@@ -205,29 +417,93 @@ public class ImageUtils {
             ExifInterface exif = new ExifInterface(imagePath);
             int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
 
-            int rotation = getRotationFromOrientation(orientation);
+            return rotateBitmap(bitmap, getRotationFromOrientation(orientation));
 
-            if (rotation != 0) {
-                Matrix matrix = new Matrix();
-                matrix.postRotate(rotation);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read EXIF data from: " + imagePath, e);
+        }
 
-                Bitmap rotatedBitmap = Bitmap.createBitmap(
-                        bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true
-                );
+        return bitmap;
+    }
 
-                if (rotatedBitmap != bitmap) {
-                    bitmap.recycle();
-                }
+    /**
+     * Rotate a bitmap clockwise into a pooled bitmap; the source must not be used afterwards
+     */
+    public static Bitmap rotateBitmap(Bitmap bitmap, int rotation) {
+        if (rotation == 0) {
+            return bitmap;
+        }
+
+        Matrix matrix = new Matrix();
+        matrix.postRotate(rotation);
+        RectF bounds = new RectF(0, 0, bitmap.getWidth(), bitmap.getHeight());
+        matrix.mapRect(bounds);
+        matrix.postTranslate(-bounds.left, -bounds.top);
+
+        Bitmap rotatedBitmap = transformPooled(bitmap, matrix,
+                Math.round(bounds.width()), Math.round(bounds.height()));
 
-                Log.d(TAG, "Rotated image by " + rotation + " degrees");
-                return rotatedBitmap;
+        Log.d(TAG, "Rotated image by " + rotation + " degrees");
+        return rotatedBitmap;
+    }
+
+    /**
+     * Draw a bitmap through a matrix into a pooled bitmap of the given size,
+     * then hand the source to the pool
+     */
+    private static Bitmap transformPooled(Bitmap source, Matrix matrix, int width, int height) {
+        Bitmap.Config config = source.getConfig() == Bitmap.Config.RGB_565
+                ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        Bitmap target = BitmapPool.getInstance().get(width, height, config);
+        new Canvas(target).drawBitmap(source, matrix, new Paint(Paint.FILTER_BITMAP_FLAG));
+        BitmapPool.getInstance().put(source);
+        return target;
+    }
+
+    /**
+     * Decode a file into a pooled bitmap via inBitmap when one is large enough
+     * Expects options from a bounds-only decode with inSampleSize set; the result is mutable.
+     */
+    private static Bitmap decodeFilePooled(String imagePath, BitmapFactory.Options options) {
+        BitmapPool pool = BitmapPool.getInstance();
+        options.inMutable = true;
+        if (options.outWidth > 0 && options.outHeight > 0) {
+            int sample = Math.max(1, options.inSampleSize);
+            Bitmap.Config config = options.inPreferredConfig != null
+                    ? options.inPreferredConfig : Bitmap.Config.ARGB_8888;
+            options.inBitmap = pool.getForDecode((options.outWidth + sample - 1) / sample,
+                    (options.outHeight + sample - 1) / sample, config);
+        }
+
+        Bitmap reuse = options.inBitmap;
+        try {
+            Bitmap bitmap = BitmapFactory.decodeFile(imagePath, options);
+            if (bitmap == null) {
+                pool.put(reuse);
             }
+            return bitmap;
+        } catch (IllegalArgumentException e) {
+            // inBitmap rejected - decode into a fresh bitmap
+            pool.put(reuse);
+            options.inBitmap = null;
+            return BitmapFactory.decodeFile(imagePath, options);
+        } finally {
+            options.inBitmap = null;
+        }
+    }
 
+    /**
+     * Clockwise rotation (0, 90, 180 or 270) needed to display the image upright
+     */
+    public static int getRotationDegrees(String imagePath) {
+        try {
+            ExifInterface exif = new ExifInterface(imagePath);
+            return getRotationFromOrientation(
+                    exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL));
         } catch (IOException e) {
             Log.w(TAG, "Could not read EXIF data from: " + imagePath, e);
+            return 0;
         }
-
-        return bitmap;
     }
 
     /**
@@ -444,7 +720,7 @@ public class ImageUtils {
         options.inSampleSize = calculateInSampleSize(options, thumbnailSize, thumbnailSize);
         options.inJustDecodeBounds = false;
 
-        Bitmap bitmap = BitmapFactory.decodeFile(imagePath, options);
+        Bitmap bitmap = decodeFilePooled(imagePath, options);
         if (bitmap == null) return null;
 
         // Apply rotation
@@ -468,20 +744,11 @@ public class ImageUtils {
         int xOffset = (width - cropSize) / 2;
         int yOffset = (height - cropSize) / 2;
 
-        // Create square crop
-        Bitmap croppedBitmap = Bitmap.createBitmap(bitmap, xOffset, yOffset, cropSize, cropSize);
-
-        // Scale to desired size
-        Bitmap thumbnail = Bitmap.createScaledBitmap(croppedBitmap, size, size, true);
-
-        // Clean up
-        if (croppedBitmap != bitmap && croppedBitmap != thumbnail) {
-            croppedBitmap.recycle();
-        }
-        if (bitmap != thumbnail) {
-            bitmap.recycle();
-        }
+        // Crop and scale in one pass into a pooled bitmap
+        Matrix matrix = new Matrix();
+        matrix.setTranslate(-xOffset, -yOffset);
+        matrix.postScale((float) size / cropSize, (float) size / cropSize);
 
-        return thumbnail;
+        return transformPooled(bitmap, matrix, size, size);
     }
 }
\ No newline at end of file
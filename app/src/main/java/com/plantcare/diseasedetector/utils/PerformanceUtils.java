@@ -677,7 +677,7 @@ public class PerformanceUtils {
     /**
      * Get app version
      */
-    private static String getAppVersion(Context context) {
+    public static String getAppVersion(Context context) {
         try {
             android.content.pm.PackageInfo packageInfo = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
             return packageInfo.versionName + " (" + packageInfo.versionCode + ")";
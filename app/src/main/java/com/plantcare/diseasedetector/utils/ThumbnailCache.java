@@ -0,0 +1,353 @@
+package com.plantcare.diseasedetector.utils;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.plantcare.diseasedetector.data.database.AppDatabase;
+import com.plantcare.diseasedetector.data.database.ScanResultDao;
+import com.plantcare.diseasedetector.data.models.ScanResult;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Thumbnail cache shared by the scan list adapters (loaded through ImageRequestManager)
+ * Two tiers: a byte-budgeted in-memory LRU of decoded bitmaps and persistent small
+ * WebP files keyed by scan id, image modification time and size. A disk hit decodes
+ * a few KB instead of the full camera JPEG; a changed image gets a new key.
+ *
+ * New scans get their thumbnails rendered once when they are saved, from a downsampled
+ * decode of the stored photo (paths stored on ScanResult); older scans are backfilled in
+ * the background. The id/mtime tier only covers scans whose recorded files are missing.
+ *
+ * The disk tier lives in no-backup files rather than the cache directory, which the
+ * app clears whenever its UI is hidden.
+ */
+public class ThumbnailCache {
+
+    private static final String TAG = "ThumbnailCache";
+
+    public static final int SIZE_SMALL = 150;   // History grid
+    public static final int SIZE_MEDIUM = 200;  // History list and recent scans
+
+    private static final String DIRECTORY = "thumbnails";
+    private static final String SCAN_DIRECTORY = "scan_thumbnails";
+    private static final int BACKFILL_BATCH = 20;
+    private static final int WEBP_QUALITY = 80;
+    private static final long MAX_DISK_BYTES = 20L * 1024 * 1024;
+    private static final int TRIM_INTERVAL = 25;                       // Disk trim every N writes
+    private static final int MIN_MEMORY_BYTES = 4 * 1024 * 1024;
+    private static final int MEMORY_SHARE_OF_AVAILABLE = 64;           // 1/64 of free system memory
+    private static final int MEMORY_SHARE_OF_HEAP = 8;                 // but never over 1/8 of the heap
+
+    private final Context context;
+    private final File directory;
+    private final File scanDirectory;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final AtomicBoolean backfillStarted = new AtomicBoolean(false);
+    private int writesSinceTrim = 0;
+
+    // Singleton instance
+    private static volatile ThumbnailCache INSTANCE;
+
+    private ThumbnailCache(Context context) {
+        this.context = context;
+        this.directory = new File(context.getNoBackupFilesDir(), DIRECTORY);
+        this.scanDirectory = new File(context.getNoBackupFilesDir(), SCAN_DIRECTORY);
+        this.memoryCache = new LruCache<String, Bitmap>(memoryBudget(context)) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+
+        if ((!directory.exists() && !directory.mkdirs()) || (!scanDirectory.exists() && !scanDirectory.mkdirs())) {
+            Log.w(TAG, "Could not create thumbnail directories");
+        }
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static ThumbnailCache getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ThumbnailCache.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ThumbnailCache(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private static int memoryBudget(Context context) {
+        long available = PerformanceUtils.MemoryManager.getAvailableMemory(context) / MEMORY_SHARE_OF_AVAILABLE;
+        long heapLimit = Runtime.getRuntime().maxMemory() / MEMORY_SHARE_OF_HEAP;
+        int budget = (int) Math.max(MIN_MEMORY_BYTES, Math.min(available, heapLimit));
+        Log.d(TAG, "Memory budget " + PerformanceUtils.formatBytes(budget));
+        return budget;
+    }
+
+    /**
+     * Decoded thumbnail if it is in the memory tier - cheap enough for the main thread
+     */
+    public Bitmap getFromMemory(String imagePath, int size) {
+        return memoryCache.get(memoryKey(imagePath, size));
+    }
+
+    /**
+     * Thumbnail from memory, the scan's own thumbnail file, the id/mtime tier, or a
+     * fresh decode of the original (which fills both tiers). Call from a background thread.
+     *
+     * @param thumbnailPath pre-rendered thumbnail of the scan, or null/empty if none
+     */
+    public Bitmap get(int scanId, String imagePath, String thumbnailPath, int size) {
+        String key = memoryKey(imagePath, size);
+        Bitmap bitmap = memoryCache.get(key);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        if (thumbnailPath != null && !thumbnailPath.isEmpty()) {
+            bitmap = BitmapFactory.decodeFile(thumbnailPath);
+            if (bitmap != null) {
+                memoryCache.put(key, bitmap);
+                return bitmap;
+            }
+        }
+
+        File imageFile = new File(imagePath);
+        if (!imageFile.exists()) {
+            return null;
+        }
+
+        // Scans not saved yet have no stable id - memory tier only
+        File thumbnailFile = scanId > 0 ? diskFile(scanId, imageFile.lastModified(), size) : null;
+        if (thumbnailFile != null && thumbnailFile.exists()) {
+            bitmap = BitmapFactory.decodeFile(thumbnailFile.getAbsolutePath());
+            if (bitmap == null) {
+                Log.w(TAG, "Discarding unreadable thumbnail " + thumbnailFile.getName());
+                thumbnailFile.delete();
+            }
+        }
+
+        if (bitmap == null) {
+            bitmap = ImageUtils.createThumbnail(imagePath, size);
+            if (bitmap == null) {
+                return null;
+            }
+            if (thumbnailFile != null) {
+                writeThumbnail(bitmap, thumbnailFile);
+            }
+        }
+
+        memoryCache.put(key, bitmap);
+        return bitmap;
+    }
+
+    private static String memoryKey(String imagePath, int size) {
+        return imagePath + "@" + size;
+    }
+
+    static String scanThumbnailPath(ScanResult scanResult, int size) {
+        return size <= SIZE_SMALL ? scanResult.getThumbnailSmallPath() : scanResult.getThumbnailMediumPath();
+    }
+
+    /**
+     * Render and write a scan's thumbnails and record their paths on it, before the
+     * scan is inserted or followed by updateThumbnailPaths. The stored photo is decoded
+     * once, downsampled and center-cropped - the same framing lists always showed.
+     * On failure the paths are set empty, so lists fall back to the id/mtime tier and
+     * the backfill does not retry. Background thread.
+     *
+     * @return true if both files were written
+     */
+    public boolean writeScanThumbnails(ScanResult scanResult) {
+        String imagePath = scanResult.getImagePath();
+        File imageFile = imagePath != null && !imagePath.isEmpty() ? new File(imagePath) : null;
+        if (imageFile == null || !imageFile.exists()) {
+            scanResult.setThumbnailSmallPath("");
+            scanResult.setThumbnailMediumPath("");
+            return false;
+        }
+
+        String name = imageFile.getName();
+        int extension = name.lastIndexOf('.');
+        String base = extension > 0 ? name.substring(0, extension) : name;
+        File smallFile = new File(scanDirectory, base + "_" + SIZE_SMALL + ".webp");
+        File mediumFile = new File(scanDirectory, base + "_" + SIZE_MEDIUM + ".webp");
+
+        // Another scan of the same stored photo already rendered them
+        if (smallFile.exists() && mediumFile.exists()) {
+            scanResult.setThumbnailSmallPath(smallFile.getAbsolutePath());
+            scanResult.setThumbnailMediumPath(mediumFile.getAbsolutePath());
+            return true;
+        }
+
+        Bitmap medium = ImageUtils.createThumbnail(imagePath, SIZE_MEDIUM);
+        if (medium == null) {
+            scanResult.setThumbnailSmallPath("");
+            scanResult.setThumbnailMediumPath("");
+            return false;
+        }
+        Bitmap small = Bitmap.createScaledBitmap(medium, SIZE_SMALL, SIZE_SMALL, true);
+        if (!writeWebp(small, smallFile) || !writeWebp(medium, mediumFile)) {
+            smallFile.delete();
+            scanResult.setThumbnailSmallPath("");
+            scanResult.setThumbnailMediumPath("");
+            return false;
+        }
+
+        scanResult.setThumbnailSmallPath(smallFile.getAbsolutePath());
+        scanResult.setThumbnailMediumPath(mediumFile.getAbsolutePath());
+
+        // The first list showing this scan needs no decode at all
+        memoryCache.put(memoryKey(imagePath, SIZE_SMALL), small);
+        memoryCache.put(memoryKey(imagePath, SIZE_MEDIUM), medium);
+        return true;
+    }
+
+    /**
+     * Remove a deleted scan's thumbnail files and cached bitmaps
+     */
+    public void deleteScanThumbnails(ScanResult scanResult) {
+        deleteIfSet(scanResult.getThumbnailSmallPath());
+        deleteIfSet(scanResult.getThumbnailMediumPath());
+        if (scanResult.getImagePath() != null) {
+            memoryCache.remove(memoryKey(scanResult.getImagePath(), SIZE_SMALL));
+            memoryCache.remove(memoryKey(scanResult.getImagePath(), SIZE_MEDIUM));
+        }
+    }
+
+    private static void deleteIfSet(String path) {
+        if (path != null && !path.isEmpty()) {
+            new File(path).delete();
+        }
+    }
+
+    /**
+     * Generate thumbnails for scans saved before they were rendered at scan time.
+     * Runs once per process on a low-priority thread.
+     */
+    public void startBackfill() {
+        if (!backfillStarted.compareAndSet(false, true)) return;
+
+        Thread thread = new Thread(this::backfill, "ThumbnailBackfill");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    private void backfill() {
+        int generated = 0;
+        try {
+            ScanResultDao dao = AppDatabase.getInstance(context).scanResultDao();
+            List<ScanResult> batch;
+            while (!(batch = dao.getScansWithoutThumbnails(BACKFILL_BATCH)).isEmpty()) {
+                for (ScanResult scanResult : batch) {
+                    if (writeScanThumbnails(scanResult)) {
+                        generated++;
+                    }
+                    dao.updateThumbnailPaths(scanResult.getId(),
+                            scanResult.getThumbnailSmallPath(), scanResult.getThumbnailMediumPath());
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Thumbnail backfill stopped", e);
+        }
+        if (generated > 0) {
+            Log.i(TAG, "Backfilled thumbnails for " + generated + " scans");
+        }
+    }
+
+    private File diskFile(int scanId, long modified, int size) {
+        return new File(directory, scanId + "_" + modified + "_" + size + ".webp");
+    }
+
+    private void writeThumbnail(Bitmap bitmap, File thumbnailFile) {
+        if (!writeWebp(bitmap, thumbnailFile)) {
+            return;
+        }
+
+        boolean trim;
+        synchronized (this) {
+            trim = ++writesSinceTrim >= TRIM_INTERVAL;
+            if (trim) writesSinceTrim = 0;
+        }
+        if (trim) {
+            trimDisk();
+        }
+    }
+
+    /**
+     * Write through a temporary file so readers never see a partial thumbnail
+     */
+    private static boolean writeWebp(Bitmap bitmap, File file) {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            bitmap.compress(webpFormat(), WEBP_QUALITY, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Error writing thumbnail " + file.getName(), e);
+            temp.delete();
+            return false;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webpFormat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+
+    /**
+     * Delete least recently written thumbnails until the disk tier fits its budget
+     */
+    private synchronized void trimDisk() {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= MAX_DISK_BYTES) return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        int deleted = 0;
+        for (File file : files) {
+            if (total <= MAX_DISK_BYTES) break;
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+                deleted++;
+            }
+        }
+        Log.d(TAG, "Trimmed " + deleted + " thumbnails");
+    }
+
+    /**
+     * Drop decoded thumbnails under memory pressure; the disk tiers make refills cheap
+     */
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            memoryCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            memoryCache.trimToSize(memoryCache.maxSize() / 2);
+        }
+    }
+}
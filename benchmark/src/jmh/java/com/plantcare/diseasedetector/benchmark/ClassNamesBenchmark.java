@@ -0,0 +1,31 @@
+package com.plantcare.diseasedetector.benchmark;
+
+import com.plantcare.diseasedetector.ml.core.ClassNames;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Plant/disease name extraction from a class label
+ */
+@State(Scope.Thread)
+public class ClassNamesBenchmark {
+
+    private String className = "Tomato___Spider_mites Two-spotted_spider_mite";
+
+    @Benchmark
+    public void extractNames(Blackhole blackhole) {
+        blackhole.consume(ClassNames.extractPlantName(className));
+        blackhole.consume(ClassNames.extractDiseaseName(className));
+    }
+
+    @Benchmark
+    public void extractNamesWithSplit(Blackhole blackhole) {
+        // Previous implementation, kept as the baseline
+        blackhole.consume(className.split("___")[0].replace("_", " "));
+        String disease = className.split("___")[1];
+        blackhole.consume(disease.equals("healthy") ? "Healthy" : disease.replace("_", " "));
+    }
+}
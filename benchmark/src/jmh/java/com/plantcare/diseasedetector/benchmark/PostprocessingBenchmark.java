@@ -0,0 +1,75 @@
+package com.plantcare.diseasedetector.benchmark;
+
+import com.plantcare.diseasedetector.ml.core.FusedPostprocessor;
+import com.plantcare.diseasedetector.ml.core.TensorMath;
+import com.plantcare.diseasedetector.ml.core.TopKSelector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Softmax, argmax and top-K over one 38-class model output,
+ * separately and fused into a single pass with entropy
+ */
+@State(Scope.Thread)
+public class PostprocessingBenchmark {
+
+    private static final int NUM_CLASSES = 38;
+    private static final int TOP_K = 5;
+
+    private float[] logits;
+    private float[] probabilities;
+    private int[] topIndices;
+    private float[] topValues;
+    private FusedPostprocessor fused;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        logits = new float[NUM_CLASSES];
+        for (int i = 0; i < NUM_CLASSES; i++) {
+            logits[i] = (float) random.nextGaussian() * 4f;
+        }
+        probabilities = TensorMath.softmax(logits);
+        topIndices = new int[TOP_K];
+        topValues = new float[TOP_K];
+        fused = new FusedPostprocessor(TOP_K);
+    }
+
+    @Benchmark
+    public float[] softmax() {
+        return TensorMath.softmax(logits);
+    }
+
+    @Benchmark
+    public float[] softmaxInto() {
+        TensorMath.softmax(logits, 0, NUM_CLASSES, probabilities);
+        return probabilities;
+    }
+
+    @Benchmark
+    public int argmax() {
+        return TensorMath.argmax(probabilities);
+    }
+
+    @Benchmark
+    public int topK() {
+        return TopKSelector.select(probabilities, TOP_K, topIndices, topValues);
+    }
+
+    @Benchmark
+    public int separatePasses() {
+        TensorMath.softmax(logits, 0, NUM_CLASSES, probabilities);
+        return TopKSelector.select(probabilities, TOP_K, topIndices, topValues);
+    }
+
+    @Benchmark
+    public float fused() {
+        fused.process(logits, 0, NUM_CLASSES);
+        return fused.getEntropy();
+    }
+}
@@ -0,0 +1,39 @@
+package com.plantcare.diseasedetector.benchmark;
+
+import com.plantcare.diseasedetector.ml.core.PixelNormalizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Pixel-to-CHW normalization of one 224x224 model input
+ */
+@State(Scope.Thread)
+public class PreprocessingBenchmark {
+
+    private static final int INPUT_SIZE = 224;
+    private static final int PLANE_SIZE = INPUT_SIZE * INPUT_SIZE;
+
+    private int[] pixels;
+    private float[] chwBuffer;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        pixels = new int[PLANE_SIZE];
+        for (int i = 0; i < PLANE_SIZE; i++) {
+            pixels[i] = 0xFF000000 | random.nextInt(0xFFFFFF);
+        }
+        chwBuffer = new float[3 * PLANE_SIZE];
+    }
+
+    @Benchmark
+    public float[] writeChw() {
+        PixelNormalizer.writeChw(pixels, PLANE_SIZE, chwBuffer, 0);
+        return chwBuffer;
+    }
+}
@@ -0,0 +1,68 @@
+package com.plantcare.diseasedetector.ml.core;
+
+/**
+ * Cheap geometric augmentations of a square ARGB pixel grid for test-time augmentation
+ * Each one is a nearest-neighbour index remap of the already scaled model input,
+ * so no bitmap is decoded or scaled again.
+ */
+public enum Augmentation {
+    HORIZONTAL_FLIP,
+    VERTICAL_FLIP,
+    CENTER_CROP,   // Zoom in on the central 87.5%
+    ZOOM_OUT;      // Show ~110% of the frame, edges clamped
+
+    private static final float CROP_FRACTION = 0.875f;
+    private static final float ZOOM_OUT_FRACTION = 1.1f;
+
+    /**
+     * Write the augmented copy of src (size x size) into dst
+     */
+    public void apply(int[] src, int size, int[] dst) {
+        switch (this) {
+            case HORIZONTAL_FLIP:
+                for (int y = 0; y < size; y++) {
+                    int row = y * size;
+                    int last = row + size - 1;
+                    for (int x = 0; x < size; x++) {
+                        dst[row + x] = src[last - x];
+                    }
+                }
+                break;
+            case VERTICAL_FLIP:
+                for (int y = 0; y < size; y++) {
+                    System.arraycopy(src, (size - 1 - y) * size, dst, y * size, size);
+                }
+                break;
+            case CENTER_CROP:
+                scale(src, size, CROP_FRACTION, dst);
+                break;
+            case ZOOM_OUT:
+                scale(src, size, ZOOM_OUT_FRACTION, dst);
+                break;
+        }
+    }
+
+    /**
+     * Sample a centered window of (fraction * size) pixels back onto the full grid
+     */
+    private static void scale(int[] src, int size, float fraction, int[] dst) {
+        float window = size * fraction;
+        float origin = (size - window) / 2f;
+        float step = window / size;
+        int max = size - 1;
+
+        for (int y = 0; y < size; y++) {
+            int sy = clamp((int) (origin + (y + 0.5f) * step), max);
+            int srcRow = sy * size;
+            int dstRow = y * size;
+            for (int x = 0; x < size; x++) {
+                int sx = clamp((int) (origin + (x + 0.5f) * step), max);
+                dst[dstRow + x] = src[srcRow + sx];
+            }
+        }
+    }
+
+    private static int clamp(int value, int max) {
+        return value < 0 ? 0 : (value > max ? max : value);
+    }
+}
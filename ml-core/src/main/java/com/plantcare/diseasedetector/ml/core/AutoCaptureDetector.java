@@ -0,0 +1,208 @@
+package com.plantcare.diseasedetector.ml.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decides when a preview stream shows a steady, sharp leaf worth capturing
+ * Works on YUV_420_888 planes without conversion:
+ * - stability: mean absolute difference of a coarse luma grid between analyzed frames
+ * - sharpness and exposure: ImageQuality on the luma plane near model resolution
+ * - leaf presence: share of green-to-yellow chroma samples in the centre of the frame
+ *
+ * The detector times itself and analyzes only every n-th frame when the average
+ * cost would exceed the per-frame CPU budget. Not thread-safe - feed it from the
+ * analysis thread only.
+ */
+public final class AutoCaptureDetector {
+
+    public static final long DEFAULT_BUDGET_NANOS = 4_000_000;   // Per preview frame
+    private static final int MOTION_GRID_SIZE = 48;               // Short side of the stability grid
+    private static final float MAX_MOTION = 3f;                   // Mean luma difference counted as steady
+    private static final long STABLE_MS = 600;
+    private static final float MIN_LEAF_RATIO = 0.2f;
+    private static final int MAX_FRAME_SKIP = 5;
+
+    /**
+     * Outcome for one frame, with the hint shown to the user
+     */
+    public enum State {
+        SKIPPED(null),                          // Not analyzed to stay within the CPU budget
+        NO_LEAF("Point the camera at a leaf"),
+        POOR_QUALITY("Too blurry or badly lit"),
+        MOVING("Hold steady..."),
+        READY("Capturing...");
+
+        public final String hint;
+
+        State(String hint) {
+            this.hint = hint;
+        }
+    }
+
+    private final long budgetNanos;
+    private final ImageQuality quality = new ImageQuality();
+    private int[] grid = new int[0];
+    private int[] previousGrid = new int[0];
+    private boolean hasPrevious;
+    private long stableSince = -1;
+    private int frameSkip;
+    private int skipped;
+    private double averageCostNanos;
+    private float motion;
+    private float leafRatio;
+
+    public AutoCaptureDetector() {
+        this(DEFAULT_BUDGET_NANOS);
+    }
+
+    public AutoCaptureDetector(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Analyze one preview frame
+     *
+     * @param timestampMs monotonic frame time
+     */
+    public State onFrame(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane,
+                         int yRowStride, int uvRowStride, int uvPixelStride,
+                         int width, int height, long timestampMs) {
+        if (skipped < frameSkip) {
+            skipped++;
+            return State.SKIPPED;
+        }
+        skipped = 0;
+
+        long start = System.nanoTime();
+        State state = analyze(yPlane, uPlane, vPlane, yRowStride, uvRowStride, uvPixelStride,
+                width, height, timestampMs);
+        updateBudget(System.nanoTime() - start);
+        return state;
+    }
+
+    private State analyze(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane,
+                          int yRowStride, int uvRowStride, int uvPixelStride,
+                          int width, int height, long timestampMs) {
+        int step = Math.max(2, Math.min(width, height) / MOTION_GRID_SIZE) & ~1; // Even: aligns with chroma
+        motion = sampleGrid(yPlane, yRowStride, width / step, height / step, step);
+        leafRatio = centreLeafRatio(uPlane, vPlane, uvRowStride, uvPixelStride, width, height, step);
+
+        if (leafRatio < MIN_LEAF_RATIO) {
+            stableSince = -1;
+            return State.NO_LEAF;
+        }
+        if (motion > MAX_MOTION) {
+            stableSince = -1;
+            return State.MOVING;
+        }
+        if (stableSince < 0) {
+            stableSince = timestampMs;
+        }
+        if (timestampMs - stableSince < STABLE_MS) {
+            return State.MOVING;
+        }
+
+        // Steady with a leaf in view - only now pay for the finer sharpness check
+        quality.analyzeLuma(yPlane, width, height, yRowStride,
+                ImageQuality.stepFor(width, height, ImageQuality.ANALYSIS_SIZE));
+        if (quality.isUnusable() || quality.getIssue() != ImageQuality.Issue.NONE) {
+            return State.POOR_QUALITY;
+        }
+        return State.READY;
+    }
+
+    /**
+     * Fill the coarse luma grid and return the mean difference to the previous one
+     */
+    private float sampleGrid(ByteBuffer yPlane, int rowStride, int gridWidth, int gridHeight, int step) {
+        int count = gridWidth * gridHeight;
+        if (grid.length != count) {
+            grid = new int[count];
+            previousGrid = new int[count];
+            hasPrevious = false;
+        }
+
+        long difference = 0;
+        int index = 0;
+        for (int y = 0; y < gridHeight; y++) {
+            int row = y * step * rowStride;
+            for (int x = 0; x < gridWidth; x++) {
+                int value = yPlane.get(row + x * step) & 0xFF;
+                grid[index] = value;
+                difference += Math.abs(value - previousGrid[index]);
+                index++;
+            }
+        }
+
+        float result = hasPrevious && count > 0 ? (float) difference / count : Float.MAX_VALUE;
+        int[] swap = previousGrid;
+        previousGrid = grid;
+        grid = swap;
+        hasPrevious = true;
+        return result;
+    }
+
+    /**
+     * Share of leaf-coloured chroma samples in the central half of the frame.
+     * Green to yellow has Cb well below neutral and Cr not far above it;
+     * soil and skin push Cr up, sky pushes Cb up.
+     */
+    private float centreLeafRatio(ByteBuffer uPlane, ByteBuffer vPlane, int rowStride, int pixelStride,
+                                  int width, int height, int step) {
+        int leaf = 0;
+        int total = 0;
+        for (int y = height / 4; y < height * 3 / 4; y += step) {
+            int row = (y / 2) * rowStride;
+            for (int x = width / 4; x < width * 3 / 4; x += step) {
+                int offset = row + (x / 2) * pixelStride;
+                int cb = uPlane.get(offset) & 0xFF;
+                int cr = vPlane.get(offset) & 0xFF;
+                if (cb <= 116 && 2 * (cr - 128) < 128 - cb) {
+                    leaf++;
+                }
+                total++;
+            }
+        }
+        return total > 0 ? (float) leaf / total : 0f;
+    }
+
+    /**
+     * Analyze fewer frames when the running cost exceeds the budget, more when well below it
+     */
+    private void updateBudget(long costNanos) {
+        averageCostNanos = averageCostNanos == 0 ? costNanos : averageCostNanos * 0.8 + costNanos * 0.2;
+        int needed = (int) Math.ceil(averageCostNanos / budgetNanos) - 1;
+        frameSkip = Math.max(0, Math.min(MAX_FRAME_SKIP, needed));
+    }
+
+    /**
+     * Forget the previous frame and the stability window, e.g. after a capture
+     */
+    public void reset() {
+        hasPrevious = false;
+        stableSince = -1;
+        skipped = 0;
+    }
+
+    /**
+     * Mean luma change between the last two analyzed frames
+     */
+    public float getMotion() {
+        return motion;
+    }
+
+    public float getLeafRatio() {
+        return leafRatio;
+    }
+
+    /**
+     * Frames currently skipped between analyses to hold the CPU budget
+     */
+    public int getFrameSkip() {
+        return frameSkip;
+    }
+
+    public double getAverageCostNanos() {
+        return averageCostNanos;
+    }
+}
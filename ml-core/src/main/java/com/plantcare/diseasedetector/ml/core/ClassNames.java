@@ -0,0 +1,38 @@
+package com.plantcare.diseasedetector.ml.core;
+
+/**
+ * Parsing of PlantVillage style class names ("Tomato___Early_blight")
+ * Uses indexOf/substring - String.split("___") compiles a regex on every call.
+ */
+public final class ClassNames {
+
+    private static final String SEPARATOR = "___";
+
+    private ClassNames() {
+    }
+
+    /**
+     * Extract plant name from class name
+     */
+    public static String extractPlantName(String className) {
+        int separator = className != null ? className.indexOf(SEPARATOR) : -1;
+        if (separator >= 0) {
+            return className.substring(0, separator).replace('_', ' ');
+        }
+        return "Unknown Plant";
+    }
+
+    /**
+     * Extract disease name from class name
+     */
+    public static String extractDiseaseName(String className) {
+        int separator = className != null ? className.indexOf(SEPARATOR) : -1;
+        if (separator >= 0) {
+            int start = separator + SEPARATOR.length();
+            int end = className.indexOf(SEPARATOR, start);
+            String disease = end >= 0 ? className.substring(start, end) : className.substring(start);
+            return disease.equals("healthy") ? "Healthy" : disease.replace('_', ' ');
+        }
+        return "Unknown";
+    }
+}
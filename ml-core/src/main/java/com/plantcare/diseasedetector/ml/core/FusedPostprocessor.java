@@ -0,0 +1,193 @@
+package com.plantcare.diseasedetector.ml.core;
+
+/**
+ * Allocation-free softmax + top-K + uncertainty over one model output row
+ * After a compare-only max scan, a single exp pass writes the unnormalized
+ * probabilities, accumulates the partition sum and the weighted logit sum for
+ * entropy, and maintains the top-K window. Normalization is folded into the
+ * top-K values; the full probability vector is normalized only when asked for.
+ *
+ * Uses the identity H = max + ln(sum) - sum(e_i * x_i) / sum, with
+ * e_i = exp(x_i - max), so entropy needs no log per class.
+ *
+ * Not thread-safe - results are overwritten by the next call.
+ */
+public final class FusedPostprocessor {
+
+    private final int k;
+    private final int[] topIndices;
+    private final float[] topValues;
+    private float[] probabilities = new float[0];
+    private int numClasses;
+    private int count;
+    private float inverseSum;
+    private boolean normalized;
+    private float entropy;
+
+    public FusedPostprocessor(int k) {
+        this.k = k;
+        this.topIndices = new int[k];
+        this.topValues = new float[k];
+    }
+
+    /**
+     * Process one row of raw logits
+     */
+    public void process(float[] logits, int offset, int length) {
+        ensureCapacity(length);
+
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < length; i++) {
+            float value = logits[offset + i];
+            if (value > max) max = value;
+        }
+
+        float[] out = probabilities;
+        float sum = 0f;
+        float weighted = 0f;
+        count = 0;
+        for (int i = 0; i < length; i++) {
+            float logit = logits[offset + i];
+            float e = (float) Math.exp(logit - max);
+            out[i] = e;
+            sum += e;
+            weighted += e * logit;
+            insertTopK(i, e);
+        }
+
+        inverseSum = 1f / sum;
+        for (int j = 0; j < count; j++) {
+            topValues[j] *= inverseSum;
+        }
+        entropy = Math.max(0f, (float) (max + Math.log(sum)) - weighted * inverseSum);
+        normalized = false;
+    }
+
+    /**
+     * Process an already normalized probability vector (e.g. averaged over views)
+     */
+    public void processProbabilities(float[] values, int length) {
+        ensureCapacity(length);
+
+        float[] out = probabilities;
+        float h = 0f;
+        count = 0;
+        for (int i = 0; i < length; i++) {
+            float p = values[i];
+            out[i] = p;
+            if (p > 0f) h -= p * (float) Math.log(p);
+            insertTopK(i, p);
+        }
+
+        entropy = h;
+        inverseSum = 1f;
+        normalized = true;
+    }
+
+    /**
+     * Insertion into the descending top-K window, dropping the smallest when full
+     */
+    private void insertTopK(int index, float value) {
+        if (count == k && value <= topValues[k - 1]) return;
+
+        int pos = count < k ? count++ : k - 1;
+        while (pos > 0 && topValues[pos - 1] < value) {
+            topValues[pos] = topValues[pos - 1];
+            topIndices[pos] = topIndices[pos - 1];
+            pos--;
+        }
+        topValues[pos] = value;
+        topIndices[pos] = index;
+    }
+
+    private void ensureCapacity(int length) {
+        if (probabilities.length != length) {
+            probabilities = new float[length];
+        }
+        numClasses = length;
+    }
+
+    /**
+     * Number of top-K entries (min(k, classes))
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Top-K class indices, descending - only the first getCount() entries are valid
+     */
+    public int[] getTopIndices() {
+        return topIndices;
+    }
+
+    /**
+     * Top-K probabilities, descending - only the first getCount() entries are valid
+     */
+    public float[] getTopValues() {
+        return topValues;
+    }
+
+    public float getTop1() {
+        return count > 0 ? topValues[0] : 0f;
+    }
+
+    /**
+     * Probability gap between the best and second-best class
+     */
+    public float getMargin() {
+        if (count == 0) return 0f;
+        return count > 1 ? topValues[0] - topValues[1] : topValues[0];
+    }
+
+    /**
+     * Shannon entropy in nats
+     */
+    public float getEntropy() {
+        return entropy;
+    }
+
+    /**
+     * Entropy divided by its maximum ln(classes): 0 = certain, 1 = uniform
+     */
+    public float getNormalizedEntropy() {
+        return numClasses > 1 ? Math.min(1f, entropy / (float) Math.log(numClasses)) : 0f;
+    }
+
+    /**
+     * Full probability vector in a reused buffer of exactly classes entries.
+     * Overwritten by the next call - copy it to keep it.
+     */
+    public float[] getProbabilities() {
+        if (!normalized) {
+            for (int i = 0; i < numClasses; i++) {
+                probabilities[i] *= inverseSum;
+            }
+            normalized = true;
+        }
+        return probabilities;
+    }
+
+    /**
+     * Normalized entropy estimated from top-K only (e.g. cached results), spreading
+     * the remaining probability mass evenly over the other classes
+     */
+    public static float estimateNormalizedEntropy(float[] topValues, int numClasses) {
+        if (numClasses <= 1 || topValues == null) return 0f;
+
+        float h = 0f;
+        float covered = 0f;
+        for (float p : topValues) {
+            if (p > 0f) h -= p * (float) Math.log(p);
+            covered += p;
+        }
+
+        int rest = numClasses - topValues.length;
+        float remaining = 1f - covered;
+        if (rest > 0 && remaining > 0f) {
+            float p = remaining / rest;
+            h -= remaining * (float) Math.log(p);
+        }
+        return Math.max(0f, Math.min(1f, h / (float) Math.log(numClasses)));
+    }
+}
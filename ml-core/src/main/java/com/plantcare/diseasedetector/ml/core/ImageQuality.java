@@ -0,0 +1,170 @@
+package com.plantcare.diseasedetector.ml.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Blur and exposure scoring on a luminance grid
+ * Sharpness is the variance of the 4-neighbour Laplacian; exposure is the share
+ * of clipped highlights and shadows. Both are measured near model resolution,
+ * which is the blur that matters for the classifier - camera luma planes are
+ * subsampled with a step instead of being converted to ARGB.
+ *
+ * Not thread-safe - the grid and the measurements of the last call are reused.
+ */
+public final class ImageQuality {
+
+    public static final float BLUR_VARIANCE = 60f;      // Below: warn as blurry
+    public static final float SHARP_VARIANCE = 400f;    // At or above: full sharpness score
+    public static final float CLIP_WARNING = 0.15f;     // Clipped share that warns
+    public static final float MAX_CLIP = 0.5f;          // Clipped share that scores 0
+    public static final float BLOCK_SCORE = 0.1f;       // Below: not worth analyzing
+    public static final int ANALYSIS_SIZE = 224;        // Short side the thresholds are set for
+
+    private static final int HIGHLIGHT_LUMA = 250;
+    private static final int SHADOW_LUMA = 5;
+
+    /**
+     * Main problem found, with the message shown to the user
+     */
+    public enum Issue {
+        NONE("Good photo quality"),
+        BLURRY("The photo is blurry - hold the phone steady and tap to focus"),
+        OVEREXPOSED("The photo is overexposed - avoid direct sunlight and glare"),
+        UNDEREXPOSED("The photo is too dark - add light or turn on the flash");
+
+        public final String message;
+
+        Issue(String message) {
+            this.message = message;
+        }
+    }
+
+    private int[] luma = new int[0];
+    private float sharpness;
+    private float highlightClip;
+    private float shadowClip;
+
+    /**
+     * Analyze packed ARGB pixels
+     */
+    public void analyzeArgb(int[] pixels, int width, int height) {
+        int count = width * height;
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            int pixel = pixels[i];
+            luma[i] = (77 * ((pixel >> 16) & 0xFF) + 150 * ((pixel >> 8) & 0xFF) + 29 * (pixel & 0xFF)) >> 8;
+        }
+        measure(width, height);
+    }
+
+    /**
+     * Analyze a camera Y plane, reading every step-th pixel of every step-th row
+     */
+    public void analyzeLuma(ByteBuffer plane, int width, int height, int rowStride, int step) {
+        int gridWidth = width / step;
+        int gridHeight = height / step;
+        ensureCapacity(gridWidth * gridHeight);
+
+        int index = 0;
+        for (int y = 0; y < gridHeight; y++) {
+            int row = y * step * rowStride;
+            for (int x = 0; x < gridWidth; x++) {
+                luma[index++] = plane.get(row + x * step) & 0xFF;
+            }
+        }
+        measure(gridWidth, gridHeight);
+    }
+
+    /**
+     * Step that brings a plane's short side close to the model input size
+     */
+    public static int stepFor(int width, int height, int targetSize) {
+        return Math.max(1, Math.min(width, height) / targetSize);
+    }
+
+    private void ensureCapacity(int count) {
+        if (luma.length < count) {
+            luma = new int[count];
+        }
+    }
+
+    private void measure(int width, int height) {
+        int count = width * height;
+        int highlights = 0;
+        int shadows = 0;
+        for (int i = 0; i < count; i++) {
+            int value = luma[i];
+            if (value >= HIGHLIGHT_LUMA) highlights++;
+            else if (value <= SHADOW_LUMA) shadows++;
+        }
+        highlightClip = count > 0 ? (float) highlights / count : 0f;
+        shadowClip = count > 0 ? (float) shadows / count : 0f;
+
+        long sum = 0;
+        long squares = 0;
+        int samples = 0;
+        for (int y = 1; y < height - 1; y++) {
+            int row = y * width;
+            for (int x = 1; x < width - 1; x++) {
+                int i = row + x;
+                int laplacian = 4 * luma[i] - luma[i - 1] - luma[i + 1] - luma[i - width] - luma[i + width];
+                sum += laplacian;
+                squares += laplacian * laplacian;
+                samples++;
+            }
+        }
+        if (samples > 0) {
+            double mean = (double) sum / samples;
+            sharpness = (float) Math.max(0.0, (double) squares / samples - mean * mean);
+        } else {
+            sharpness = 0f;
+        }
+    }
+
+    /**
+     * Laplacian variance of the last analysis - higher is sharper
+     */
+    public float getSharpness() {
+        return sharpness;
+    }
+
+    /**
+     * Share of pixels at or near white
+     */
+    public float getHighlightClip() {
+        return highlightClip;
+    }
+
+    /**
+     * Share of pixels at or near black
+     */
+    public float getShadowClip() {
+        return shadowClip;
+    }
+
+    /**
+     * Overall quality 0 (unusable) - 1 (sharp and well exposed)
+     */
+    public float getScore() {
+        float sharpScore = Math.min(1f, sharpness / SHARP_VARIANCE);
+        float exposureScore = Math.max(0f, 1f - (highlightClip + shadowClip) / MAX_CLIP);
+        return sharpScore * exposureScore;
+    }
+
+    /**
+     * Most important problem of the last analysis; exposure first, as clipping also hides edges
+     */
+    public Issue getIssue() {
+        if (highlightClip >= CLIP_WARNING && highlightClip >= shadowClip) return Issue.OVEREXPOSED;
+        if (shadowClip >= CLIP_WARNING) return Issue.UNDEREXPOSED;
+        if (sharpness < BLUR_VARIANCE) return Issue.BLURRY;
+        return Issue.NONE;
+    }
+
+    /**
+     * Too poor for a meaningful diagnosis
+     */
+    public boolean isUnusable() {
+        return getScore() < BLOCK_SCORE;
+    }
+}
@@ -0,0 +1,108 @@
+package com.plantcare.diseasedetector.ml.core;
+
+/**
+ * Cheap "is this a leaf at all" screen run on the scaled model input
+ * Counts plant-coloured pixels (green through chlorotic yellow, but not the
+ * orange-brown of soil or skin) and the luminance spread, so blank walls,
+ * covered lenses and photos without foliage are rejected before the forward pass.
+ * One pass over the pixels with integer math only - well under a millisecond at 224x224.
+ *
+ * Not thread-safe - the measurements of the last check are kept for logging.
+ */
+public final class LeafGate {
+
+    public static final float DEFAULT_MIN_PLANT_RATIO = 0.08f;
+    public static final float DEFAULT_MIN_LUMA_STD_DEV = 8f;
+
+    /**
+     * Outcome of a check, with the message shown to the user
+     */
+    public enum Reason {
+        ACCEPTED("Plant detected"),
+        NO_PLANT("No leaves found - move closer so the leaf fills the frame"),
+        FEATURELESS("The photo looks blank or covered - aim the camera at a leaf");
+
+        public final String message;
+
+        Reason(String message) {
+            this.message = message;
+        }
+    }
+
+    private final float minPlantRatio;
+    private final float minLumaStdDev;
+    private float plantRatio;
+    private float lumaStdDev;
+
+    public LeafGate() {
+        this(DEFAULT_MIN_PLANT_RATIO, DEFAULT_MIN_LUMA_STD_DEV);
+    }
+
+    public LeafGate(float minPlantRatio, float minLumaStdDev) {
+        this.minPlantRatio = minPlantRatio;
+        this.minLumaStdDev = minLumaStdDev;
+    }
+
+    /**
+     * Screen packed ARGB pixels
+     *
+     * @param count number of pixels to read from the start of the array
+     */
+    public Reason check(int[] pixels, int count) {
+        if (count <= 0) {
+            plantRatio = 0f;
+            lumaStdDev = 0f;
+            return Reason.FEATURELESS;
+        }
+
+        int plant = 0;
+        long lumaSum = 0;
+        long lumaSquares = 0;
+        for (int i = 0; i < count; i++) {
+            int pixel = pixels[i];
+            int r = (pixel >> 16) & 0xFF;
+            int g = (pixel >> 8) & 0xFF;
+            int b = pixel & 0xFF;
+
+            int luma = (77 * r + 150 * g + 29 * b) >> 8;
+            lumaSum += luma;
+            lumaSquares += luma * luma;
+
+            if (isPlantColour(r, g, b)) {
+                plant++;
+            }
+        }
+
+        double mean = (double) lumaSum / count;
+        double variance = Math.max(0.0, (double) lumaSquares / count - mean * mean);
+        lumaStdDev = (float) Math.sqrt(variance);
+        plantRatio = (float) plant / count;
+
+        if (lumaStdDev < minLumaStdDev) {
+            return Reason.FEATURELESS;
+        }
+        return plantRatio < minPlantRatio ? Reason.NO_PLANT : Reason.ACCEPTED;
+    }
+
+    /**
+     * Green to yellow-green hue with some saturation: green at least 85% of red
+     * and clearly above blue. Brown soil and skin have green well below red.
+     */
+    static boolean isPlantColour(int r, int g, int b) {
+        return g >= 32 && g - b >= 20 && g * 20 >= r * 17;
+    }
+
+    /**
+     * Share of plant-coloured pixels in the last check
+     */
+    public float getPlantRatio() {
+        return plantRatio;
+    }
+
+    /**
+     * Luminance standard deviation (0-255 scale) in the last check
+     */
+    public float getLumaStdDev() {
+        return lumaStdDev;
+    }
+}
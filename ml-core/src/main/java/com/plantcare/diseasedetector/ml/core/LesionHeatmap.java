@@ -0,0 +1,117 @@
+package com.plantcare.diseasedetector.ml.core;
+
+/**
+ * Coarse per-tile disease probability map of a scanned photo
+ * Stored with the scan as "cols x rows:hex", one byte (0-255) per cell in
+ * row-major order, e.g. "3x2:00ff8011a0c4".
+ */
+public final class LesionHeatmap {
+
+    /** Disease probability from which a cell counts as a lesion */
+    public static final float LESION_THRESHOLD = 0.5f;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final int cols;
+    private final int rows;
+    private final float[] values;
+
+    public LesionHeatmap(int cols, int rows, float[] values) {
+        if (values.length != cols * rows) {
+            throw new IllegalArgumentException("Expected " + (cols * rows) + " cells, got " + values.length);
+        }
+        this.cols = cols;
+        this.rows = rows;
+        this.values = values.clone();
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Fraction of cells at or above the threshold
+     */
+    public float getCoverage(float threshold) {
+        int count = 0;
+        for (float value : values) {
+            if (value >= threshold) count++;
+        }
+        return (float) count / values.length;
+    }
+
+    /**
+     * Rotate clockwise by 0, 90, 180 or 270 degrees (to match the displayed image)
+     */
+    public LesionHeatmap rotate(int degrees) {
+        int turns = ((degrees / 90) % 4 + 4) % 4;
+        if (turns == 0) return this;
+
+        int newCols = turns % 2 == 0 ? cols : rows;
+        int newRows = turns % 2 == 0 ? rows : cols;
+        float[] rotated = new float[values.length];
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int newCol;
+                int newRow;
+                switch (turns) {
+                    case 1:
+                        newCol = rows - 1 - row;
+                        newRow = col;
+                        break;
+                    case 2:
+                        newCol = cols - 1 - col;
+                        newRow = rows - 1 - row;
+                        break;
+                    default:
+                        newCol = row;
+                        newRow = cols - 1 - col;
+                        break;
+                }
+                rotated[newRow * newCols + newCol] = values[row * cols + col];
+            }
+        }
+        return new LesionHeatmap(newCols, newRows, rotated);
+    }
+
+    /**
+     * Compact string form for storage
+     */
+    public String encode() {
+        StringBuilder builder = new StringBuilder(8 + values.length * 2);
+        builder.append(cols).append('x').append(rows).append(':');
+        for (float value : values) {
+            int level = Math.round(Math.max(0f, Math.min(1f, value)) * 255f);
+            builder.append(HEX[level >> 4]).append(HEX[level & 0xF]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parse the string form, or null if it is missing or malformed
+     */
+    public static LesionHeatmap decode(String encoded) {
+        if (encoded == null || encoded.isEmpty()) return null;
+        try {
+            int cross = encoded.indexOf('x');
+            int colon = encoded.indexOf(':');
+            int cols = Integer.parseInt(encoded.substring(0, cross));
+            int rows = Integer.parseInt(encoded.substring(cross + 1, colon));
+            String cells = encoded.substring(colon + 1);
+            if (cols <= 0 || rows <= 0 || cells.length() != cols * rows * 2) return null;
+
+            float[] values = new float[cols * rows];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Integer.parseInt(cells.substring(i * 2, i * 2 + 2), 16) / 255f;
+            }
+            return new LesionHeatmap(cols, rows, values);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.plantcare.diseasedetector.ml.core;
+
+/**
+ * ImageNet normalization of packed ARGB pixels into CHW float planes
+ * Every 8-bit channel value maps through a precomputed lookup table, so the
+ * hot loop is shifts, masks and array reads only.
+ */
+public final class PixelNormalizer {
+
+    // ImageNet normalization (CRITICAL for correct predictions)
+    private static final float[] MEAN = {0.485f, 0.456f, 0.406f};
+    private static final float[] STD = {0.229f, 0.224f, 0.225f};
+
+    // Normalized value for every 8-bit channel intensity - treat as read-only
+    public static final float[] RED_LUT = buildLut(0);
+    public static final float[] GREEN_LUT = buildLut(1);
+    public static final float[] BLUE_LUT = buildLut(2);
+
+    private PixelNormalizer() {
+    }
+
+    /**
+     * Convert ARGB pixels to normalized float values in CHW format (Channels-Height-Width)
+     *
+     * @param planeSize pixels per channel (width * height)
+     * @param offset    index in out where the red plane starts
+     */
+    public static void writeChw(int[] pixels, int planeSize, float[] out, int offset) {
+        int greenOffset = offset + planeSize;
+        int blueOffset = offset + 2 * planeSize;
+
+        for (int i = 0; i < planeSize; i++) {
+            int pixel = pixels[i];
+            out[offset + i] = RED_LUT[(pixel >> 16) & 0xFF];
+            out[greenOffset + i] = GREEN_LUT[(pixel >> 8) & 0xFF];
+            out[blueOffset + i] = BLUE_LUT[pixel & 0xFF];
+        }
+    }
+
+    /**
+     * Build the normalization lookup table for one channel
+     */
+    private static float[] buildLut(int channel) {
+        float[] lut = new float[256];
+        for (int v = 0; v < 256; v++) {
+            lut[v] = (v / 255.0f - MEAN[channel]) / STD[channel];
+        }
+        return lut;
+    }
+}
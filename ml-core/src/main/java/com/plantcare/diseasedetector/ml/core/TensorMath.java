@@ -0,0 +1,65 @@
+package com.plantcare.diseasedetector.ml.core;
+
+/**
+ * Post-processing math over raw model output
+ */
+public final class TensorMath {
+
+    private TensorMath() {
+    }
+
+    /**
+     * Apply softmax to convert raw scores to probabilities
+     */
+    public static float[] softmax(float[] logits) {
+        return softmax(logits, 0, logits.length);
+    }
+
+    /**
+     * Apply softmax to one row of a (possibly batched) score array
+     */
+    public static float[] softmax(float[] logits, int offset, int length) {
+        float[] probabilities = new float[length];
+        softmax(logits, offset, length, probabilities);
+        return probabilities;
+    }
+
+    /**
+     * Apply softmax to one row of a score array, writing into a caller-owned buffer
+     */
+    public static void softmax(float[] logits, int offset, int length, float[] out) {
+        // Find max for numerical stability
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < length; i++) {
+            if (logits[offset + i] > max) max = logits[offset + i];
+        }
+
+        // Compute exp and sum
+        float sum = 0.0f;
+        for (int i = 0; i < length; i++) {
+            out[i] = (float) Math.exp(logits[offset + i] - max);
+            sum += out[i];
+        }
+
+        // Normalize
+        float inverseSum = 1.0f / sum;
+        for (int i = 0; i < length; i++) {
+            out[i] *= inverseSum;
+        }
+    }
+
+    /**
+     * Index of the largest value, or -1 for an empty array
+     */
+    public static int argmax(float[] values) {
+        int bestIndex = -1;
+        float bestValue = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] > bestValue) {
+                bestValue = values[i];
+                bestIndex = i;
+            }
+        }
+        return bestIndex;
+    }
+}
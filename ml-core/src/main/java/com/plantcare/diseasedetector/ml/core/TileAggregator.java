@@ -0,0 +1,72 @@
+package com.plantcare.diseasedetector.ml.core;
+
+/**
+ * Combines per-tile class probabilities into a plant-level verdict
+ * A plain mean lets a few lesion tiles drown in healthy foliage, so when any
+ * tile is confidently diseased only those tiles decide the verdict.
+ */
+public final class TileAggregator {
+
+    private TileAggregator() {
+    }
+
+    /**
+     * Probability mass on disease classes for every tile
+     *
+     * @param healthyClasses true for the "healthy" output classes
+     */
+    public static float[] diseaseScores(float[][] tileProbabilities, boolean[] healthyClasses) {
+        float[] scores = new float[tileProbabilities.length];
+        for (int t = 0; t < tileProbabilities.length; t++) {
+            float[] probabilities = tileProbabilities[t];
+            if (probabilities == null) continue;
+
+            float disease = 0f;
+            for (int c = 0; c < probabilities.length; c++) {
+                if (c >= healthyClasses.length || !healthyClasses[c]) {
+                    disease += probabilities[c];
+                }
+            }
+            scores[t] = disease;
+        }
+        return scores;
+    }
+
+    /**
+     * Plant-level probabilities: the mean over lesion tiles (disease score at or
+     * above lesionThreshold), or over all tiles when none qualifies.
+     * Returns null if no tile produced output.
+     */
+    public static float[] combine(float[][] tileProbabilities, float[] diseaseScores, float lesionThreshold) {
+        boolean anyLesion = false;
+        for (int t = 0; t < tileProbabilities.length; t++) {
+            if (tileProbabilities[t] != null && diseaseScores[t] >= lesionThreshold) {
+                anyLesion = true;
+                break;
+            }
+        }
+
+        float[] combined = null;
+        int used = 0;
+        for (int t = 0; t < tileProbabilities.length; t++) {
+            float[] probabilities = tileProbabilities[t];
+            if (probabilities == null) continue;
+            if (anyLesion && diseaseScores[t] < lesionThreshold) continue;
+
+            if (combined == null) {
+                combined = new float[probabilities.length];
+            }
+            for (int c = 0; c < combined.length; c++) {
+                combined[c] += probabilities[c];
+            }
+            used++;
+        }
+
+        if (combined != null) {
+            for (int c = 0; c < combined.length; c++) {
+                combined[c] /= used;
+            }
+        }
+        return combined;
+    }
+}
@@ -0,0 +1,103 @@
+package com.plantcare.diseasedetector.ml.core;
+
+/**
+ * Layout of overlapping square tiles covering a large image
+ * Tiles start at about a third of the short side (never below the model input
+ * size) and grow until the grid fits the tile budget. Tiles are spread evenly so
+ * the first and last ones touch the image edges.
+ */
+public final class TileGrid {
+
+    private static final int TILES_ACROSS_SHORT_SIDE = 3;
+    private static final float GROWTH_FACTOR = 1.25f;
+
+    private final int cols;
+    private final int rows;
+    private final int tileSide;
+    private final int[] lefts;
+    private final int[] tops;
+
+    private TileGrid(int cols, int rows, int tileSide, int[] lefts, int[] tops) {
+        this.cols = cols;
+        this.rows = rows;
+        this.tileSide = tileSide;
+        this.lefts = lefts;
+        this.tops = tops;
+    }
+
+    /**
+     * Plan a grid for an image
+     *
+     * @param minTileSide smallest useful tile, usually the model input size
+     * @param overlap     fraction of a tile shared with its neighbour (0 - 0.5)
+     * @param maxTiles    tile budget - bounds the batched input memory
+     */
+    public static TileGrid plan(int width, int height, int minTileSide, float overlap, int maxTiles) {
+        int shortSide = Math.min(width, height);
+        int tileSide = Math.min(shortSide, Math.max(minTileSide, shortSide / TILES_ACROSS_SHORT_SIDE));
+
+        int cols;
+        int rows;
+        while (true) {
+            int stride = Math.max(1, (int) (tileSide * (1f - overlap)));
+            cols = countAlong(width, tileSide, stride);
+            rows = countAlong(height, tileSide, stride);
+            if (cols * rows <= maxTiles || tileSide >= shortSide) break;
+            tileSide = Math.min(shortSide, (int) (tileSide * GROWTH_FACTOR));
+        }
+
+        // A square tile of the full short side can still exceed the budget on panoramas
+        while (cols * rows > maxTiles && cols > 1) cols--;
+        while (cols * rows > maxTiles && rows > 1) rows--;
+
+        return new TileGrid(cols, rows, tileSide,
+                spread(width, tileSide, cols), spread(height, tileSide, rows));
+    }
+
+    private static int countAlong(int length, int tileSide, int stride) {
+        if (length <= tileSide) return 1;
+        return (length - tileSide + stride - 1) / stride + 1;
+    }
+
+    private static int[] spread(int length, int tileSide, int count) {
+        int[] starts = new int[count];
+        int span = length - tileSide;
+        for (int i = 0; i < count; i++) {
+            starts[i] = count > 1 ? Math.round((float) span * i / (count - 1)) : span / 2;
+        }
+        return starts;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getTileCount() {
+        return cols * rows;
+    }
+
+    /**
+     * Side of every tile in source pixels
+     */
+    public int getTileSide() {
+        return tileSide;
+    }
+
+    /**
+     * Left edge of tile index (row-major)
+     */
+    public int getLeft(int index) {
+        return lefts[index % cols];
+    }
+
+    /**
+     * Top edge of tile index (row-major)
+     */
+    public int getTop(int index) {
+        return tops[index / cols];
+    }
+}
@@ -0,0 +1,90 @@
+package com.plantcare.diseasedetector.ml.core;
+
+import java.util.Locale;
+
+/**
+ * Partial top-K selection over a probability vector
+ * Keeps a small descending array of the K best entries in a single pass -
+ * O(n * k) with no boxing or full sort, which beats sorting for the tiny K we show.
+ */
+public final class TopKSelector {
+
+    private static final char ENTRY_SEPARATOR = ';';
+    private static final char VALUE_SEPARATOR = ':';
+
+    private TopKSelector() {
+    }
+
+    /**
+     * Select the K largest values in descending order
+     *
+     * @return number of entries written (min(k, values.length))
+     */
+    public static int select(float[] values, int k, int[] outIndices, float[] outValues) {
+        int count = 0;
+
+        for (int i = 0; i < values.length; i++) {
+            float value = values[i];
+            if (count == k && value <= outValues[k - 1]) {
+                continue;
+            }
+
+            // Insertion into the sorted window, dropping the smallest when full
+            int pos = count < k ? count++ : k - 1;
+            while (pos > 0 && outValues[pos - 1] < value) {
+                outValues[pos] = outValues[pos - 1];
+                outIndices[pos] = outIndices[pos - 1];
+                pos--;
+            }
+            outValues[pos] = value;
+            outIndices[pos] = i;
+        }
+
+        return count;
+    }
+
+    /**
+     * Encode top-K entries compactly for storage, e.g. "3:0.9120;28:0.0510"
+     */
+    public static String encode(int[] indices, float[] values) {
+        if (indices == null || values == null || indices.length == 0) return null;
+
+        StringBuilder builder = new StringBuilder(indices.length * 10);
+        for (int i = 0; i < indices.length; i++) {
+            if (i > 0) builder.append(ENTRY_SEPARATOR);
+            builder.append(indices[i])
+                    .append(VALUE_SEPARATOR)
+                    .append(String.format(Locale.US, "%.4f", values[i]));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Decode indices from an encoded top-K string
+     */
+    public static int[] decodeIndices(String encoded) {
+        String[] entries = split(encoded);
+        int[] indices = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            indices[i] = Integer.parseInt(entries[i].substring(0, entries[i].indexOf(VALUE_SEPARATOR)));
+        }
+        return indices;
+    }
+
+    /**
+     * Decode values from an encoded top-K string
+     */
+    public static float[] decodeValues(String encoded) {
+        String[] entries = split(encoded);
+        float[] values = new float[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            values[i] = Float.parseFloat(entries[i].substring(entries[i].indexOf(VALUE_SEPARATOR) + 1));
+        }
+        return values;
+    }
+
+    private static String[] split(String encoded) {
+        if (encoded == null || encoded.isEmpty()) return new String[0];
+        return encoded.split(String.valueOf(ENTRY_SEPARATOR));
+    }
+}
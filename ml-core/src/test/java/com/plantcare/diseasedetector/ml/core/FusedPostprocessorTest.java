@@ -0,0 +1,69 @@
+package com.plantcare.diseasedetector.ml.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class FusedPostprocessorTest {
+
+    private static final float[] LOGITS = {1.5f, -0.3f, 4.2f, 0.0f, 2.7f, -2.0f};
+
+    @Test
+    public void matchesSeparateSoftmaxAndTopK() {
+        float[] expected = TensorMath.softmax(LOGITS);
+        int[] expectedIndices = new int[3];
+        float[] expectedValues = new float[3];
+        TopKSelector.select(expected, 3, expectedIndices, expectedValues);
+
+        FusedPostprocessor postprocessor = new FusedPostprocessor(3);
+        postprocessor.process(LOGITS, 0, LOGITS.length);
+
+        assertEquals(3, postprocessor.getCount());
+        assertArrayEquals(expectedIndices, postprocessor.getTopIndices());
+        assertArrayEquals(expectedValues, postprocessor.getTopValues(), 1e-6f);
+        assertArrayEquals(expected, postprocessor.getProbabilities(), 1e-6f);
+        assertEquals(expectedValues[0] - expectedValues[1], postprocessor.getMargin(), 1e-6f);
+        assertEquals(entropy(expected), postprocessor.getEntropy(), 1e-5f);
+    }
+
+    @Test
+    public void processesRowAtOffset() {
+        float[] batch = new float[LOGITS.length * 2];
+        System.arraycopy(LOGITS, 0, batch, LOGITS.length, LOGITS.length);
+
+        FusedPostprocessor postprocessor = new FusedPostprocessor(2);
+        postprocessor.process(batch, LOGITS.length, LOGITS.length);
+
+        assertArrayEquals(TensorMath.softmax(LOGITS), postprocessor.getProbabilities(), 1e-6f);
+    }
+
+    @Test
+    public void uniformInputHasMaximalNormalizedEntropy() {
+        FusedPostprocessor postprocessor = new FusedPostprocessor(5);
+        postprocessor.processProbabilities(new float[]{0.25f, 0.25f, 0.25f, 0.25f}, 4);
+
+        assertEquals(4, postprocessor.getCount());
+        assertEquals(1f, postprocessor.getNormalizedEntropy(), 1e-5f);
+        assertEquals(0f, postprocessor.getMargin(), 0f);
+    }
+
+    @Test
+    public void estimatedEntropyMatchesWhenTopKCoversEveryClass() {
+        float[] probabilities = TensorMath.softmax(LOGITS);
+        FusedPostprocessor postprocessor = new FusedPostprocessor(LOGITS.length);
+        postprocessor.processProbabilities(probabilities, probabilities.length);
+
+        float[] top = postprocessor.getTopValues().clone();
+        assertEquals(postprocessor.getNormalizedEntropy(),
+                FusedPostprocessor.estimateNormalizedEntropy(top, LOGITS.length), 1e-5f);
+    }
+
+    private static float entropy(float[] probabilities) {
+        double h = 0;
+        for (float p : probabilities) {
+            if (p > 0) h -= p * Math.log(p);
+        }
+        return (float) h;
+    }
+}
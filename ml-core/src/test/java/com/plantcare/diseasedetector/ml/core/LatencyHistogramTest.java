@@ -0,0 +1,74 @@
+package com.plantcare.diseasedetector.ml.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    @Test
+    public void smallValuesHaveExactBuckets() {
+        for (long value = 0; value < 32; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertEquals(value, index);
+            assertEquals(value, LatencyHistogram.bucketUpperBound(index));
+        }
+    }
+
+    @Test
+    public void bucketBoundsAreContiguous() {
+        int last = LatencyHistogram.bucketIndex(MAX_VALUE);
+        for (int index = 0; index < last; index++) {
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            assertEquals("upper bound of bucket " + index, index, LatencyHistogram.bucketIndex(upper));
+            assertEquals("value after bucket " + index, index + 1, LatencyHistogram.bucketIndex(upper + 1));
+        }
+        assertEquals(MAX_VALUE, LatencyHistogram.bucketUpperBound(last));
+    }
+
+    @Test
+    public void upperBoundIsWithinBucketResolution() {
+        for (int shift = 5; shift < 40; shift++) {
+            long[] values = {1L << shift, (1L << shift) + 1, (3L << shift) / 2, (1L << (shift + 1)) - 1};
+            for (long value : values) {
+                long upper = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(value));
+                assertTrue("bound " + upper + " below " + value, upper >= value);
+                assertTrue("bound " + upper + " too far above " + value, upper - value < value / 16 + 1);
+            }
+        }
+    }
+
+    @Test
+    public void percentilesNeverUnderstate() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(100_000, histogram.getMaxMicros());
+        assertEquals(50_500.0, histogram.getMeanMicros(), 1e-9);
+
+        long p50 = histogram.getValueAtPercentile(50);
+        assertTrue(p50 >= 50_000 && p50 < 50_000 * 17 / 16);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p99 >= 99_000 && p99 <= 100_000);
+        assertEquals(100_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void negativeValuesCountAsZeroAndResetClears() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
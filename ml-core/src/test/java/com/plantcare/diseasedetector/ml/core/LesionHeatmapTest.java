@@ -0,0 +1,72 @@
+package com.plantcare.diseasedetector.ml.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class LesionHeatmapTest {
+
+    @Test
+    public void encodesOneByteCellsRowMajor() {
+        LesionHeatmap heatmap = new LesionHeatmap(3, 2, new float[]{0f, 1f, 0.5f, 0.0667f, 0.6275f, 0.7686f});
+        assertEquals("3x2:00ff8011a0c4", heatmap.encode());
+    }
+
+    @Test
+    public void encodeDecodeRoundTrip() {
+        LesionHeatmap heatmap = new LesionHeatmap(3, 2, new float[]{0f, 1f, 0.5f, 0.25f, 0.75f, 0.1f});
+
+        LesionHeatmap decoded = LesionHeatmap.decode(heatmap.encode());
+        assertNotNull(decoded);
+        assertEquals(3, decoded.getCols());
+        assertEquals(2, decoded.getRows());
+        assertEquals(heatmap.encode(), decoded.encode());
+        assertEquals(heatmap.getCoverage(0.5f), decoded.getCoverage(0.5f), 0f);
+    }
+
+    @Test
+    public void encodeClampsOutOfRangeValues() {
+        assertEquals("2x1:00ff", new LesionHeatmap(2, 1, new float[]{-0.5f, 2f}).encode());
+    }
+
+    @Test
+    public void decodeRejectsMalformedInput() {
+        assertNull(LesionHeatmap.decode(null));
+        assertNull(LesionHeatmap.decode(""));
+        assertNull(LesionHeatmap.decode("3x2:00ff"));
+        assertNull(LesionHeatmap.decode("0x2:"));
+        assertNull(LesionHeatmap.decode("ax2:0000"));
+        assertNull(LesionHeatmap.decode("2x1:zz00"));
+        assertNull(LesionHeatmap.decode("no heatmap"));
+    }
+
+    @Test
+    public void rotatesClockwise() {
+        // 0 1 2        3 0
+        // 3 4 5   ->   4 1
+        //              5 2
+        LesionHeatmap heatmap = LesionHeatmap.decode("3x2:000102030405");
+        assertNotNull(heatmap);
+
+        assertEquals("2x3:030004010502", heatmap.rotate(90).encode());
+        assertEquals("3x2:050403020100", heatmap.rotate(180).encode());
+        assertEquals("2x3:020501040003", heatmap.rotate(270).encode());
+        assertEquals("2x3:020501040003", heatmap.rotate(-90).encode());
+        assertSame(heatmap, heatmap.rotate(360));
+    }
+
+    @Test
+    public void coverageCountsCellsAtOrAboveThreshold() {
+        LesionHeatmap heatmap = new LesionHeatmap(2, 2, new float[]{0.1f, 0.5f, 0.9f, 0.4f});
+        assertEquals(0.5f, heatmap.getCoverage(LesionHeatmap.LESION_THRESHOLD), 0f);
+        assertEquals(1f, heatmap.getCoverage(0f), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWrongCellCount() {
+        new LesionHeatmap(2, 2, new float[3]);
+    }
+}
@@ -0,0 +1,73 @@
+package com.plantcare.diseasedetector.ml.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TileGridTest {
+
+    private static final int INPUT_SIZE = 224;
+    private static final float OVERLAP = 0.25f;
+    private static final int MAX_TILES = 8;
+
+    @Test
+    public void smallSquareImageIsOneTile() {
+        TileGrid grid = TileGrid.plan(200, 200, INPUT_SIZE, OVERLAP, MAX_TILES);
+        assertEquals(1, grid.getTileCount());
+        assertEquals(200, grid.getTileSide());
+        assertEquals(0, grid.getLeft(0));
+        assertEquals(0, grid.getTop(0));
+    }
+
+    @Test
+    public void smallImageTilesShortSideAcrossLongSide() {
+        TileGrid grid = TileGrid.plan(200, 150, INPUT_SIZE, OVERLAP, MAX_TILES);
+        assertEquals(2, grid.getCols());
+        assertEquals(1, grid.getRows());
+        assertEquals(150, grid.getTileSide());
+        assertEquals(0, grid.getLeft(0));
+        assertEquals(50, grid.getLeft(1));
+    }
+
+    @Test
+    public void largePhotoFitsBudgetAndCoversEdges() {
+        int[][] sizes = {{4032, 3024}, {3024, 4032}, {1920, 1080}, {12000, 1000}};
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            TileGrid grid = TileGrid.plan(width, height, INPUT_SIZE, OVERLAP, MAX_TILES);
+            String name = width + "x" + height;
+
+            assertTrue(name + " tiles", grid.getTileCount() >= 1 && grid.getTileCount() <= MAX_TILES);
+            assertTrue(name + " tile side", grid.getTileSide() >= INPUT_SIZE
+                    && grid.getTileSide() <= Math.min(width, height));
+
+            int last = grid.getTileCount() - 1;
+            int side = grid.getTileSide();
+            for (int i = 0; i <= last; i++) {
+                assertTrue(name + " tile " + i, grid.getLeft(i) >= 0 && grid.getLeft(i) + side <= width);
+                assertTrue(name + " tile " + i, grid.getTop(i) >= 0 && grid.getTop(i) + side <= height);
+            }
+            if (grid.getCols() > 1) {
+                assertEquals(name, 0, grid.getLeft(0));
+                assertEquals(name, width - side, grid.getLeft(last));
+            }
+            if (grid.getRows() > 1) {
+                assertEquals(name, 0, grid.getTop(0));
+                assertEquals(name, height - side, grid.getTop(last));
+            }
+        }
+    }
+
+    @Test
+    public void tilesAreRowMajor() {
+        TileGrid grid = TileGrid.plan(4032, 3024, INPUT_SIZE, OVERLAP, MAX_TILES);
+        int cols = grid.getCols();
+        assertTrue(cols > 1 && grid.getRows() > 1);
+
+        assertEquals(grid.getTop(0), grid.getTop(cols - 1));
+        assertTrue(grid.getTop(cols) > grid.getTop(0));
+        assertEquals(grid.getLeft(0), grid.getLeft(cols));
+    }
+}
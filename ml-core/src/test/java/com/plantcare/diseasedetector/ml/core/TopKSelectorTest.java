@@ -0,0 +1,50 @@
+package com.plantcare.diseasedetector.ml.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TopKSelectorTest {
+
+    @Test
+    public void selectsLargestInDescendingOrder() {
+        float[] values = {0.1f, 0.5f, 0.05f, 0.3f, 0.05f};
+        int[] indices = new int[3];
+        float[] top = new float[3];
+
+        assertEquals(3, TopKSelector.select(values, 3, indices, top));
+        assertArrayEquals(new int[]{1, 3, 0}, indices);
+        assertArrayEquals(new float[]{0.5f, 0.3f, 0.1f}, top, 0f);
+    }
+
+    @Test
+    public void selectsAllWhenFewerThanK() {
+        int[] indices = new int[5];
+        float[] top = new float[5];
+
+        assertEquals(2, TopKSelector.select(new float[]{0.2f, 0.8f}, 5, indices, top));
+        assertEquals(1, indices[0]);
+        assertEquals(0, indices[1]);
+    }
+
+    @Test
+    public void encodeDecodeRoundTrip() {
+        int[] indices = {3, 28, 0};
+        float[] values = {0.9120f, 0.0510f, 0.0011f};
+
+        String encoded = TopKSelector.encode(indices, values);
+        assertEquals("3:0.9120;28:0.0510;0:0.0011", encoded);
+        assertArrayEquals(indices, TopKSelector.decodeIndices(encoded));
+        assertArrayEquals(values, TopKSelector.decodeValues(encoded), 1e-6f);
+    }
+
+    @Test
+    public void emptyInputsEncodeToNullAndDecodeToEmpty() {
+        assertNull(TopKSelector.encode(new int[0], new float[0]));
+        assertNull(TopKSelector.encode(null, null));
+        assertEquals(0, TopKSelector.decodeIndices(null).length);
+        assertEquals(0, TopKSelector.decodeValues("").length);
+    }
+}